@@ -1,166 +1,92 @@
 package ru.practicum.shareitgateway.booking;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import ru.practicum.shareitgateway.booking.dto.BookingDto;
-import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
+import ru.practicum.shareitgateway.proxy.ServerUri;
+
+import java.net.URI;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/bookings")
-@Slf4j
 @RequiredArgsConstructor
 public class BookingController {
 
-    private final RestTemplate restTemplate;
-    private final AppConfig appConfig;
+    private final ServerProxy serverProxy;
 
     @PostMapping
-    public ResponseEntity<Object> createBooking(
+    public ResponseEntity<Resource> createBooking(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @Valid @RequestBody BookingDto bookingDto) {
-
-        String url = appConfig.getFullUrl("/bookings");
-        log.info("POST-запрос на сервер: {}, тело: {}", url, bookingDto);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<BookingDto> requestEntity = new HttpEntity<>(bookingDto, headers);
-
-        try {
-            ResponseEntity<Object> response = restTemplate.exchange(url, HttpMethod.POST, requestEntity, Object.class);
-            log.info("Ответ от сервера: статус={}, тело={}", response.getStatusCode(), response.getBody());
-            return response;
-        } catch (HttpClientErrorException e) {
-            log.warn("Ошибка от сервера: статус={}, сообщение={}", e.getStatusCode(), e.getResponseBodyAsString());
-
-            // Возвращаем статус сервера (например, 404)
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
-        } catch (Exception e) {
-            log.error("Неожиданная ошибка при отправке POST-запроса: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Произошла ошибка на шлюзе");
-        }
+        return serverProxy.forward(HttpMethod.POST, ServerUri.of("/bookings").toUri(), userId, bookingDto);
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<Resource> updateBookingStatuses(
+            @RequestHeader("X-Sharer-User-Id") Long ownerId,
+            @Valid @RequestBody BookingStatusUpdateDto statusUpdateDto) {
+        return serverProxy.forward(HttpMethod.PATCH, ServerUri.of("/bookings/status").toUri(), ownerId,
+                statusUpdateDto);
+    }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> updateBookingStatus(
+    public ResponseEntity<Resource> updateBookingStatus(
             @RequestHeader("X-Sharer-User-Id") Long ownerId,
             @PathVariable Long bookingId,
             @RequestParam boolean approved) {
-
-        String url = appConfig.getFullUrl("/bookings/" + bookingId + "?approved=" + approved);
-        log.info("PATCH-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(ownerId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        try {
-            ResponseEntity<Object> response = restTemplate.exchange(url, HttpMethod.PATCH, requestEntity, Object.class);
-            log.info("Ответ от сервера: статус={}, тело={}", response.getStatusCode(), response.getBody());
-            return response;
-        } catch (HttpClientErrorException.Forbidden e) {
-            log.warn("Ошибка 403: {}", e.getResponseBodyAsString());
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getResponseBodyAsString());
-        } catch (HttpClientErrorException e) {
-            log.warn("Ошибка от сервера: статус={}, сообщение={}", e.getStatusCode(), e.getResponseBodyAsString());
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
-        } catch (Exception e) {
-            log.error("Неожиданная ошибка при PATCH-запросе: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Произошла ошибка на шлюзе");
-        }
+        return serverProxy.forward(HttpMethod.PATCH, ServerUri.of("/bookings/" + bookingId)
+                .param("approved", approved)
+                .toUri(), ownerId, null);
     }
 
-
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(
+    public ResponseEntity<Resource> getBooking(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @PathVariable Long bookingId) {
-
-        String url = appConfig.getFullUrl("/bookings/" + bookingId);
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+        return serverProxy.get(ServerUri.of("/bookings/" + bookingId).toUri(), userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserBookings(
+    public ResponseEntity<Resource> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "ALL") String state) {
-
-        String url = appConfig.getFullUrl("/bookings?state=" + state);
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterStart,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return serverProxy.get(listUri("/bookings", state, afterStart, afterId, from, size), userId);
     }
 
-
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsForOwner(
+    public ResponseEntity<Resource> getBookingsForOwner(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "ALL") String state) {
-
-        String url = appConfig.getFullUrl("/bookings/owner?state=" + state);
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        try {
-            ResponseEntity<Object> response = restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
-            log.info("Ответ от сервера: статус={}, тело={}", response.getStatusCode(), response.getBody());
-            return response;
-
-        } catch (HttpClientErrorException.NotFound e) {
-            log.warn("Ошибка 404: {}", e.getResponseBodyAsString());
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-            return ResponseEntity
-                    .status(HttpStatus.NOT_FOUND)
-                    .headers(responseHeaders)
-                    .body(e.getResponseBodyAsString());
-
-        } catch (HttpClientErrorException e) {
-            log.warn("Ошибка от сервера: статус={}, сообщение={}", e.getStatusCode(), e.getResponseBodyAsString());
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-            return ResponseEntity
-                    .status(e.getStatusCode())
-                    .headers(responseHeaders)
-                    .body(e.getResponseBodyAsString());
-
-        } catch (Exception e) {
-            log.error("Неожиданная ошибка при GET-запросе: {}", e.getMessage(), e);
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .headers(responseHeaders)
-                    .body("{\"error\":\"Произошла ошибка на шлюзе\"}");
-        }
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterStart,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return serverProxy.get(listUri("/bookings/owner", state, afterStart, afterId, from, size), userId);
     }
 
-
+    private static URI listUri(String path, String state, LocalDateTime afterStart, Long afterId, int from, int size) {
+        return ServerUri.of(path)
+                .param("state", state)
+                .param("from", from)
+                .param("size", size)
+                .param("afterStart", afterStart)
+                .param("afterId", afterId)
+                .toUri();
+    }
 }
-
-
@@ -0,0 +1,22 @@
+package ru.practicum.shareitgateway.booking.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatusUpdateDto {
+    @NotEmpty(message = "Список бронирований не должен быть пустым")
+    @Size(max = 1000, message = "За один запрос можно обработать не больше 1000 бронирований")
+    private List<@NotNull(message = "ID бронирования обязательно") Long> bookingIds;
+
+    @NotNull(message = "Решение по бронированиям обязательно")
+    private Boolean approved;
+}
@@ -1,39 +1,110 @@
 package ru.practicum.shareitgateway.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.Getter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
 @Configuration
 @Getter
+@EnableConfigurationProperties({ServerClientProperties.class, ResponseCacheProperties.class,
+        RequestCoalescingProperties.class})
 public class AppConfig {
 
     @Value("${shareit-server.url}")
     private String serverUrl;
 
-
+    // Запросы шлюза обрабатываются в виртуальных потоках (spring.threads.virtual.enabled), поэтому
+    // число одновременных обращений к серверу ограничивает только пул соединений
+    @Bean
+    public PoolingHttpClientConnectionManager serverConnectionManager(ServerClientProperties properties) {
+        ServerClientProperties.Pool pool = properties.getPool();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(timeout(properties.getSocketTimeout()))
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(properties.getConnectTimeout()))
+                        .setSocketTimeout(timeout(properties.getSocketTimeout()))
+                        .setTimeToLive(timeValue(pool.getTimeToLive()))
+                        .setValidateAfterInactivity(timeValue(pool.getValidateAfterInactivity()))
+                        .build())
+                .build();
+    }
 
     @Bean
-    public RestTemplate restTemplate() {
-        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+    public RestTemplate restTemplate(PoolingHttpClientConnectionManager serverConnectionManager,
+                                     ServerClientProperties properties) {
         CloseableHttpClient httpClient = HttpClients.custom()
-                .setConnectionManager(new PoolingHttpClientConnectionManager())
+                .setConnectionManager(serverConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(properties.getPool().getLeaseTimeout()))
+                        .setResponseTimeout(timeout(properties.getResponseTimeout()))
+                        .setConnectionKeepAlive(timeValue(properties.getKeepAlive()))
+                        .build())
                 .evictExpiredConnections()
-                .setConnectionManager(cm)
+                .evictIdleConnections(timeValue(properties.getPool().getIdleTimeout()))
                 .build();
 
         HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
         return new RestTemplate(factory);
     }
 
+    /**
+     * Состояние пула соединений с сервером: gateway.server.pool.leased/pending/available/max.
+     * Растущее pending при leased, равном max, означает, что пропускную способность ограничивает пул.
+     */
+    @Bean
+    public MeterBinder serverConnectionPoolMetrics(PoolingHttpClientConnectionManager serverConnectionManager) {
+        return registry -> {
+            poolGauge(registry, serverConnectionManager, "leased", "Соединения, выданные запросам",
+                    PoolStats::getLeased);
+            poolGauge(registry, serverConnectionManager, "pending", "Запросы, ожидающие свободного соединения",
+                    PoolStats::getPending);
+            poolGauge(registry, serverConnectionManager, "available", "Свободные открытые соединения",
+                    PoolStats::getAvailable);
+            poolGauge(registry, serverConnectionManager, "max", "Размер пула",
+                    PoolStats::getMax);
+        };
+    }
 
     public String getFullUrl(String path) {
         return serverUrl + path;
     }
-}
\ No newline at end of file
+
+    private static void poolGauge(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager,
+                                  String name, String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder("gateway.server.pool." + name, connectionManager, cm -> value.applyAsInt(cm.getTotalStats()))
+                .description(description)
+                .register(registry);
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue timeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareitgateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки объединения одинаковых одновременных GET-запросов к серверу (gateway.request-coalescing.*).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.request-coalescing")
+public class RequestCoalescingProperties {
+    private boolean enabled = true;
+    // Сверх этого числа запросы, совпавшие с уже выполняющимся, сразу получают 503
+    private int maxWaiters = 1000;
+    // Не дождавшись общего ответа за это время, запрос получает 504
+    private Duration timeout = Duration.ofSeconds(2);
+}
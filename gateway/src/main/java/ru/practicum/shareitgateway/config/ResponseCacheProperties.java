@@ -0,0 +1,28 @@
+package ru.practicum.shareitgateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша ответов сервера на повторяющиеся GET-запросы (gateway.response-cache.*).
+ * Срок жизни записи ограничивает, насколько шлюз может отстать от изменений, прошедших через другие экземпляры.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    private long maxEntries = 10_000;
+    // Ответы длиннее не кэшируются, не раздаются совпавшим запросам и отдаются клиенту потоком
+    private int maxBodyBytes = 256 * 1024;
+    // Столько ответ хранится после истечения срока жизни, чтобы перепроверить его у сервера через If-None-Match
+    private Duration revalidationWindow = Duration.ofMinutes(5);
+
+    private Duration itemSearchTtl = Duration.ofSeconds(10);
+    private Duration itemTtl = Duration.ofSeconds(30);
+    private Duration requestsAllTtl = Duration.ofSeconds(30);
+    private Duration userTtl = Duration.ofMinutes(1);
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareitgateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки HTTP-клиента шлюза для обращений к серверу (shareit-server.*).
+ * Весь трафик шлюза идёт на один маршрут, поэтому лимит на маршрут обычно равен общему размеру пула.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server")
+public class ServerClientProperties {
+    // Установка TCP-соединения
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    // Ожидание данных от сервера на уже установленном соединении
+    private Duration socketTimeout = Duration.ofSeconds(30);
+    // Ожидание ответа сервера после отправки запроса
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    // Сколько держать соединение открытым, если сервер не прислал заголовок Keep-Alive
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    private final Pool pool = new Pool();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int maxTotal = 1000;
+        private int maxPerRoute = 1000;
+        // Ожидание свободного соединения, когда пул исчерпан
+        private Duration leaseTimeout = Duration.ofSeconds(5);
+        // Простаивающие дольше соединения закрываются фоновым потоком клиента
+        private Duration idleTimeout = Duration.ofMinutes(1);
+        // Предельный срок жизни соединения независимо от активности
+        private Duration timeToLive = Duration.ofMinutes(5);
+        // Соединение, простоявшее дольше, перед выдачей проверяется на разрыв сервером
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    }
+}
@@ -1,146 +1,120 @@
 package ru.practicum.shareitgateway.item;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
-import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.item.dto.CommentDto;
 import ru.practicum.shareitgateway.item.dto.ItemDto;
 import ru.practicum.shareitgateway.item.dto.ItemPatchDto;
-import ru.practicum.shareitgateway.item.dto.CommentDto;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
+import ru.practicum.shareitgateway.proxy.ServerUri;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/items")
-@Slf4j
 @RequiredArgsConstructor
 public class ItemController {
+    private static final String NDJSON_VALUE = "application/x-ndjson";
 
-    private final RestTemplate restTemplate;
-    private final AppConfig appConfig;
+    private final ServerProxy serverProxy;
 
     @PostMapping
-    public ResponseEntity<Object> createItem(
+    public ResponseEntity<Resource> createItem(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @Valid @RequestBody ItemDto itemDto) {
+        return serverProxy.forward(HttpMethod.POST, ServerUri.of("/items").toUri(), userId, itemDto);
+    }
 
-        String url = appConfig.getFullUrl("/items");
-        log.info("POST-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<ItemDto> requestEntity = new HttpEntity<>(itemDto, headers);
-
-        return restTemplate.exchange(url, HttpMethod.POST, requestEntity, Object.class);
+    // Тело массовой загрузки шлюз не разбирает и не буферизует: оно потоком уходит на сервер,
+    // который проверяет каждую запись по тем же правилам, что и ItemDto, и возвращает итог по записям
+    @PostMapping(value = "/bulk", consumes = {NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Resource> importItems(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        return serverProxy.forwardStream(HttpMethod.POST, ServerUri.of("/items/bulk").toUri(), userId,
+                MediaType.parseMediaType(contentType), body);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(
+    public ResponseEntity<Resource> updateItem(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @PathVariable Long itemId,
             @Valid @RequestBody ItemPatchDto itemPatchDto) {
-
-        String url = appConfig.getFullUrl("/items/" + itemId);
-        log.info("PATCH-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<ItemPatchDto> requestEntity = new HttpEntity<>(itemPatchDto, headers);
-
-        return restTemplate.exchange(url, HttpMethod.PATCH, requestEntity, Object.class);
+        return serverProxy.forward(HttpMethod.PATCH, ServerUri.of("/items/" + itemId).toUri(), userId,
+                itemPatchDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(
+    public ResponseEntity<Resource> getItem(
             @PathVariable Long itemId,
             @RequestHeader("X-Sharer-User-Id") Long userId) {
-
-        String url = appConfig.getFullUrl("/items/" + itemId);
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+        return serverProxy.get(ServerUri.of("/items/" + itemId).toUri(), userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserItems(
-            @RequestHeader("X-Sharer-User-Id") Long userId) {
-
-        String url = appConfig.getFullUrl("/items");
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+    public ResponseEntity<Resource> getUserItems(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return serverProxy.get(ServerUri.of("/items")
+                .param("from", from)
+                .param("size", size)
+                .toUri(), userId);
+    }
 
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+    // NDJSON-поток вещей владельца пробрасываем клиенту как есть, не собирая его в памяти шлюза
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<Resource> streamUserItems(
+            @RequestHeader("X-Sharer-User-Id") Long userId) {
+        return serverProxy.execute(HttpMethod.GET, ServerUri.of("/items").toUri(), userId,
+                request -> request.getHeaders().setAccept(List.of(MediaType.parseMediaType(NDJSON_VALUE))));
     }
 
+    // after — курсор из заголовка X-Next-Cursor предыдущей страницы, шлюз передаёт его серверу как есть
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestParam String text) {
-
-        String url = appConfig.getFullUrl("/items/search?text=" + text);
-        log.info("GET-запрос на сервер: {}", url);
-
-        return restTemplate.getForEntity(url, Object.class);
+    public ResponseEntity<Resource> searchItems(
+            @RequestParam String text,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return serverProxy.get(ServerUri.of("/items/search")
+                .param("text", text)
+                .param("from", from)
+                .param("size", size)
+                .param("after", after)
+                .toUri(), null);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Resource> getItemAvailability(
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return serverProxy.get(ServerUri.of("/items/" + itemId + "/availability")
+                .param("from", from)
+                .param("to", to)
+                .toUri(), null);
+    }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(
+    public ResponseEntity<Resource> addComment(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @PathVariable Long itemId,
             @Valid @RequestBody CommentDto commentDto) {
-
-        String url = appConfig.getFullUrl("/items/" + itemId + "/comment");
-        log.info("POST-запрос на сервер: {}, тело: {}", url, commentDto);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<CommentDto> requestEntity = new HttpEntity<>(commentDto, headers);
-
-        try {
-            ResponseEntity<Object> response = restTemplate.exchange(url, HttpMethod.POST, requestEntity, Object.class);
-            log.info("Ответ от сервера: статус={}, тело={}", response.getStatusCode(), response.getBody());
-            return response;
-        } catch (HttpClientErrorException.BadRequest e) {
-            log.warn("Ошибка 400: {}", e.getResponseBodyAsString());
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST)
-                    .headers(responseHeaders)
-                    .body(e.getResponseBodyAsString());
-        } catch (HttpClientErrorException e) {
-            log.warn("Ошибка от сервера: статус={}, сообщение={}", e.getStatusCode(), e.getResponseBodyAsString());
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-            return ResponseEntity
-                    .status(e.getStatusCode())
-                    .headers(responseHeaders)
-                    .body(e.getResponseBodyAsString());
-        } catch (Exception e) {
-            log.error("Неожиданная ошибка при POST-запросе: {}", e.getMessage(), e);
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .headers(responseHeaders)
-                    .body("{\"error\":\"Произошла ошибка на шлюзе\"}");
-        }
+        return serverProxy.forward(HttpMethod.POST, ServerUri.of("/items/" + itemId + "/comment").toUri(), userId,
+                commentDto);
     }
-
 }
-
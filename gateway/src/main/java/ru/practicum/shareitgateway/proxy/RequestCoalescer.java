@@ -0,0 +1,143 @@
+package ru.practicum.shareitgateway.proxy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareitgateway.config.RequestCoalescingProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных GET-запросов (single-flight): первый запрос с данными путём
+ * и пользователем идёт на сервер, а совпавшие с ним, пока он выполняется, ждут и получают тот же ответ.
+ * Ответ не переживает запрос, который его получил: пришедший после завершения запрос снова идёт на сервер.
+ * <p>
+ * Число ожидающих и время ожидания ограничены. Сверх них запрос на сервер не идёт, а сразу получает
+ * 503 или 504: повторять запрос, с которым сервер уже не справляется, значило бы умножить нагрузку на него.
+ * Общим может быть только ответ, тело которого уже прочитано в память; получив потоковый ответ или ошибку
+ * ведущего запроса, ожидающие идут на сервер сами. Запрос, начатый до изменения, прошедшего через шлюз,
+ * к новым ожидающим не присоединяет: иначе клиент не увидел бы собственное изменение.
+ * Число обслуженных чужим ответом запросов публикуется в метрике gateway.requests.coalesced.
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    private static final byte[] OVERLOADED = "{\"error\":\"Шлюз перегружен, повторите запрос позже\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TIMED_OUT = "{\"error\":\"Сервер не ответил вовремя\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private record FlightKey(String path, Long userId) {
+    }
+
+    private static final class Flight {
+        private final long mutation;
+        private final AtomicInteger waiters = new AtomicInteger();
+        // null, если ответ нельзя раздать ожидающим
+        private final CompletableFuture<ResponseEntity<Resource>> result = new CompletableFuture<>();
+
+        private Flight(long mutation) {
+            this.mutation = mutation;
+        }
+    }
+
+    private final RequestCoalescingProperties properties;
+    private final Map<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong mutations = new AtomicLong();
+    private final Counter coalesced;
+
+    public RequestCoalescer(RequestCoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.coalesced = Counter.builder("gateway.requests.coalesced")
+                .description("GET-запросы, получившие ответ на совпавший с ними запрос")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет call или, если такой же запрос уже выполняется, ждёт его ответа.
+     */
+    public ResponseEntity<Resource> execute(String path, Long userId, Supplier<ResponseEntity<Resource>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        FlightKey key = new FlightKey(path, userId);
+        long mutation = mutations.get();
+        Flight candidate = new Flight(mutation);
+        Flight flight = flights.compute(key,
+                (k, existing) -> existing == null || existing.mutation != mutation ? candidate : existing);
+        if (flight == candidate) {
+            return lead(key, flight, call);
+        }
+        return follow(flight, call);
+    }
+
+    /**
+     * Изменяющий запрос завершён: уже выполняющиеся GET-запросы новых ожидающих не принимают.
+     */
+    public void onMutation() {
+        mutations.incrementAndGet();
+    }
+
+    private ResponseEntity<Resource> lead(FlightKey key, Flight flight, Supplier<ResponseEntity<Resource>> call) {
+        ResponseEntity<Resource> response = null;
+        try {
+            response = call.get();
+            return response;
+        } finally {
+            flights.remove(key, flight);
+            flight.result.complete(isShareable(response) ? response : null);
+        }
+    }
+
+    private ResponseEntity<Resource> follow(Flight flight, Supplier<ResponseEntity<Resource>> call) {
+        if (flight.waiters.incrementAndGet() > properties.getMaxWaiters()) {
+            log.debug("Превышено число ожидающих совпавшего GET-запроса: {}", properties.getMaxWaiters());
+            return error(HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED);
+        }
+        ResponseEntity<Resource> shared;
+        try {
+            shared = flight.result.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Не дождались ответа на совпавший GET-запрос за {}", properties.getTimeout());
+            return error(HttpStatus.GATEWAY_TIMEOUT, TIMED_OUT);
+        } catch (ExecutionException e) {
+            log.debug("Совпавший GET-запрос завершился ошибкой: {}", e.getMessage());
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(HttpStatus.GATEWAY_TIMEOUT, TIMED_OUT);
+        }
+        if (shared == null) {
+            return call.get();
+        }
+        coalesced.increment();
+        return shared;
+    }
+
+    private static ResponseEntity<Resource> error(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ByteArrayResource(body));
+    }
+
+    // Тело ByteArrayResource можно читать сколько угодно раз, поток ответа сервера — только один
+    private static boolean isShareable(ResponseEntity<Resource> response) {
+        return response != null && response.getBody() instanceof ByteArrayResource;
+    }
+}
@@ -0,0 +1,196 @@
+package ru.practicum.shareitgateway.proxy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import ru.practicum.shareitgateway.config.ResponseCacheProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш успешных ответов сервера на часто повторяющиеся GET-запросы. Ключ — путь с параметрами
+ * и, для маршрутов, ответ которых зависит от пользователя, id из X-Sharer-User-Id.
+ * Срок жизни задаётся для каждого маршрута, размер ограничен (вытесняются давно не использованные записи).
+ * Каждому ответу присваивается ETag, поэтому клиент с совпадающим If-None-Match получает 304 без тела.
+ * Истёкший ответ ещё хранится в течение revalidation-window: шлюз перепроверяет его у сервера
+ * через If-None-Match и на 304 отдаёт сохранённое тело, не получая его от сервера заново.
+ * <p>
+ * Изменяющий запрос, прошедший через шлюз, увеличивает поколение всех маршрутов, зависящих от изменённого ресурса:
+ * записи старого поколения больше не выдаются, а ответ, запрошенный у сервера до изменения, не сохраняется.
+ * Попадания и промахи публикуются в метриках cache.gets{cache=gateway-responses}.
+ */
+@Component
+public class ResponseCache {
+
+    enum Route {
+        // Найденные вещи отдаются с последним и следующим бронированием и отзывами
+        // (отзывы пишутся через /items/{id}/comment, поэтому их покрывает "items")
+        ITEM_SEARCH("^/items/search\\?.*", false, Set.of("items", "bookings", "users"),
+                ResponseCacheProperties::getItemSearchTtl),
+        // Владелец вещи видит в ответе её бронирования и отзывы
+        ITEM("^/items/\\d+$", true, Set.of("items", "bookings", "users"),
+                ResponseCacheProperties::getItemTtl),
+        // В списке нет запросов самого пользователя, зато есть вещи, предложенные в ответ
+        REQUESTS_ALL("^/requests/all\\?.*", true, Set.of("requests", "items", "users"),
+                ResponseCacheProperties::getRequestsAllTtl),
+        USER("^/users/\\d+$", false, Set.of("users"),
+                ResponseCacheProperties::getUserTtl);
+
+        private final Pattern path;
+        private final boolean userScoped;
+        // Первые сегменты путей, изменение которых делает ответ устаревшим
+        private final Set<String> dependsOn;
+        private final Function<ResponseCacheProperties, Duration> ttl;
+
+        Route(String path, boolean userScoped, Set<String> dependsOn,
+              Function<ResponseCacheProperties, Duration> ttl) {
+            this.path = Pattern.compile(path);
+            this.userScoped = userScoped;
+            this.dependsOn = dependsOn;
+            this.ttl = ttl;
+        }
+    }
+
+    record Key(Route route, String path, Long userId) {
+    }
+
+    record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, long generation,
+                          long expiresAt) {
+        boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+
+        ResponseEntity<Resource> toResponseEntity() {
+            return ResponseEntity.status(status).headers(headers).body(new ByteArrayResource(body));
+        }
+    }
+
+    private final ResponseCacheProperties properties;
+    private final Map<Route, AtomicLong> generations = new EnumMap<>(Route.class);
+    private final Cache<Key, CachedResponse> responses;
+
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (Route route : Route.values()) {
+            generations.put(route, new AtomicLong());
+        }
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfter(new Expiry<Key, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(Key key, CachedResponse value, long currentTime) {
+                        return key.route().ttl.apply(properties).plus(properties.getRevalidationWindow()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, CachedResponse value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, CachedResponse value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gateway-responses");
+    }
+
+    /**
+     * Ключ кэша для GET-запроса или null, если ответы на такой запрос не кэшируются.
+     */
+    Key keyFor(String path, Long userId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        for (Route route : Route.values()) {
+            if (route.path.matcher(path).matches()) {
+                return new Key(route, path, route.userScoped ? userId : null);
+            }
+        }
+        return null;
+    }
+
+    CachedResponse get(Key key) {
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached == null || cached.generation() != generation(key) || !cached.isFresh()) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Сохранённый ответ, который можно перепроверить у сервера по его ETag, или null. Подходит и истёкший,
+     * и инвалидированный ответ: сервер ответит 304, только если ответ не изменился.
+     */
+    CachedResponse getForRevalidation(Key key) {
+        return responses.policy().getIfPresentQuietly(key);
+    }
+
+    /**
+     * Текущее поколение маршрута; запоминается до обращения к серверу и передаётся в put.
+     */
+    long generation(Key key) {
+        return generations.get(key.route()).get();
+    }
+
+    /**
+     * Сохраняет ответ, если с момента запроса к серверу маршрут не был инвалидирован. Без ETag сервера
+     * ETag вычисляется по телу. Возвращает ответ для клиента с тем же ETag.
+     */
+    ResponseEntity<Resource> put(Key key, long generation, HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        if (headers.getETag() == null) {
+            headers.setETag("\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        }
+        long expiresAt = System.nanoTime() + key.route().ttl.apply(properties).toNanos();
+        CachedResponse response = new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body,
+                generation, expiresAt);
+        if (generation == generation(key)) {
+            responses.put(key, response);
+        }
+        return response.toResponseEntity();
+    }
+
+    int maxBodyBytes() {
+        return properties.getMaxBodyBytes();
+    }
+
+    /**
+     * Учитывает изменяющий запрос к пути path: ответы всех маршрутов, зависящих от его ресурса, устаревают.
+     */
+    void invalidate(String path) {
+        String resource = firstSegment(path);
+        for (Route route : Route.values()) {
+            if (route.dependsOn.contains(resource)) {
+                generations.get(route).incrementAndGet();
+            }
+        }
+    }
+
+    private static String firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = start;
+        while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != '?') {
+            end++;
+        }
+        return path.substring(start, end);
+    }
+}
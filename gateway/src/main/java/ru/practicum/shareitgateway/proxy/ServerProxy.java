@@ -0,0 +1,268 @@
+package ru.practicum.shareitgateway.proxy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareitgateway.config.AppConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Проброс запросов шлюза на сервер. Входящий запрос проверяется контроллером, а ответ сервера
+ * (статус, заголовки и тело, в том числе тело ошибки) отдаётся клиенту как есть: тело не разбирается
+ * в объекты, а копируется потоком из соединения с сервером в ответ шлюза при записи ResponseEntity.
+ * Соединение возвращается в пул, когда поток тела закрыт.
+ * Адрес запроса передаётся готовым URI (см. {@link ServerUri}) и к адресу сервера дописывается без разбора
+ * как шаблона, поэтому значения параметров не теряются и не раскрываются повторно.
+ * Ответы на часто повторяющиеся GET-запросы берутся из ResponseCache, изменяющие запросы его инвалидируют;
+ * истёкший или инвалидированный ответ перепроверяется у сервера через If-None-Match.
+ * Одинаковые одновременные GET-запросы объединяются RequestCoalescer в одно обращение к серверу.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ServerProxy {
+    public static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    // Заголовки соединения шлюз—сервер клиенту не передаются
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade");
+    private static final Set<HttpMethod> SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    private static final byte[] GATEWAY_ERROR = "{\"error\":\"Произошла ошибка на шлюзе\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final RestTemplate restTemplate;
+    private final AppConfig appConfig;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+
+    public ResponseEntity<Resource> get(URI target, Long userId) {
+        String path = target.toString();
+        ResponseCache.Key key = responseCache.keyFor(path, userId);
+        if (key != null) {
+            ResponseCache.CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                log.debug("GET-запрос {} обслужен из кэша шлюза", path);
+                return cached.toResponseEntity();
+            }
+        }
+        return requestCoalescer.execute(path, userId, () -> fetch(key, target, userId));
+    }
+
+    /**
+     * Запрос с JSON-телом из уже проверенного DTO; body может быть null.
+     */
+    public ResponseEntity<Resource> forward(HttpMethod method, URI target, Long userId, Object body) {
+        if (body == null) {
+            return execute(method, target, userId, request -> {
+            });
+        }
+        byte[] content = toJson(body);
+        return execute(method, target, userId, request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.getHeaders().setContentLength(content.length);
+            writeBody(request, content);
+        });
+    }
+
+    /**
+     * Запрос, тело которого потоком переносится из входящего запроса без разбора и буферизации.
+     */
+    public ResponseEntity<Resource> forwardStream(HttpMethod method, URI target, Long userId,
+                                                  MediaType contentType, InputStream body) {
+        return execute(method, target, userId, request -> {
+            request.getHeaders().setContentType(contentType);
+            writeBody(request, body);
+        });
+    }
+
+    /**
+     * Общий случай: callback может дополнить заголовки (например, Accept) и записать тело.
+     * По умолчанию запрашивается JSON и передаётся id пользователя, если он задан.
+     */
+    public ResponseEntity<Resource> execute(HttpMethod method, URI target, Long userId, RequestCallback callback) {
+        URI uri = URI.create(appConfig.getFullUrl(target.toString()));
+        ClientHttpResponse response = null;
+        boolean invalidateAfterExecute = false;
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, method);
+            request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+            if (userId != null) {
+                request.getHeaders().set(USER_ID_HEADER, String.valueOf(userId));
+            }
+            callback.doWithRequest(request);
+            if (!SAFE_METHODS.contains(method)) {
+                // Изменение могло примениться, даже если ответ до шлюза не дошёл
+                invalidateAfterExecute = true;
+            }
+            response = request.execute();
+            HttpStatusCode status = response.getStatusCode();
+            log.info("{}-запрос на сервер: {}, статус ответа: {}", method, uri, status.value());
+
+            return ResponseEntity.status(status)
+                    .headers(endToEndHeaders(response.getHeaders()))
+                    .body(new InputStreamResource(new UpstreamBodyStream(response)));
+        } catch (IOException e) {
+            log.error("Ошибка при {}-запросе на сервер {}: {}", method, uri, e.getMessage(), e);
+            if (response != null) {
+                response.close();
+            }
+            return gatewayError();
+        } finally {
+            if (invalidateAfterExecute) {
+                responseCache.invalidate(target.getPath());
+                requestCoalescer.onMutation();
+            }
+        }
+    }
+
+    // Успешный ответ кэшируемого маршрута сохраняется в кэше, если с начала запроса его не инвалидировали.
+    // Сохранённый ранее ответ перепроверяется по ETag: на 304 сервер не передаёт тело, берётся сохранённое
+    private ResponseEntity<Resource> fetch(ResponseCache.Key key, URI target, Long userId) {
+        long generation = key != null ? responseCache.generation(key) : 0;
+        ResponseCache.CachedResponse stored = key != null ? responseCache.getForRevalidation(key) : null;
+        ResponseEntity<Resource> response = buffer(target, execute(HttpMethod.GET, target, userId, request -> {
+            if (stored != null) {
+                request.getHeaders().setIfNoneMatch(stored.headers().getETag());
+            }
+        }));
+        if (stored != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            log.debug("Ответ на GET-запрос {} не изменился на сервере", target);
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(stored.headers());
+            return responseCache.put(key, generation, stored.status(), headers, stored.body());
+        }
+        if (key != null && response.getStatusCode().isSameCodeAs(HttpStatus.OK)
+                && response.getBody() instanceof ByteArrayResource body) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(response.getHeaders());
+            return responseCache.put(key, generation, response.getStatusCode(), headers, body.getByteArray());
+        }
+        return response;
+    }
+
+    // Тело в пределах лимита читается в память, чтобы ответ можно было сохранить в кэше и раздать
+    // совпавшим запросам; более длинное отдаётся потоком: уже прочитанное начало, затем остаток
+    private ResponseEntity<Resource> buffer(URI target, ResponseEntity<Resource> response) {
+        if (!(response.getBody() instanceof InputStreamResource upstream)) {
+            return response;
+        }
+        InputStream body = null;
+        byte[] head;
+        try {
+            body = upstream.getInputStream();
+            head = body.readNBytes(responseCache.maxBodyBytes() + 1);
+        } catch (IOException e) {
+            log.error("Ошибка при чтении ответа сервера на GET-запрос {}: {}", target, e.getMessage(), e);
+            closeQuietly(body);
+            return gatewayError();
+        }
+        if (head.length > responseCache.maxBodyBytes()) {
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(new InputStreamResource(new SequenceInputStream(new ByteArrayInputStream(head), body)));
+        }
+        closeQuietly(body);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .body(new ByteArrayResource(head));
+    }
+
+    private static ResponseEntity<Resource> gatewayError() {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ByteArrayResource(GATEWAY_ERROR));
+    }
+
+    private static void closeQuietly(InputStream body) {
+        if (body == null) {
+            return;
+        }
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("Не удалось закрыть ответ сервера: {}", e.getMessage());
+        }
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать тело запроса", e);
+        }
+    }
+
+    // getBody() у потоковых запросов Apache HttpClient копит тело в памяти, поэтому отдаём его через setBody
+    private static void writeBody(ClientHttpRequest request, byte[] content) throws IOException {
+        if (request instanceof StreamingHttpOutputMessage streaming) {
+            streaming.setBody(out -> out.write(content));
+        } else {
+            request.getBody().write(content);
+        }
+    }
+
+    private static void writeBody(ClientHttpRequest request, InputStream body) throws IOException {
+        if (request instanceof StreamingHttpOutputMessage streaming) {
+            streaming.setBody(out -> StreamUtils.copy(body, out));
+        } else {
+            StreamUtils.copy(body, request.getBody());
+        }
+    }
+
+    private static HttpHeaders endToEndHeaders(HttpHeaders upstream) {
+        HttpHeaders headers = new HttpHeaders();
+        upstream.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
+    // Закрытие потока тела закрывает и ответ сервера, возвращая соединение в пул
+    private static final class UpstreamBodyStream extends FilterInputStream {
+        private final ClientHttpResponse response;
+
+        private UpstreamBodyStream(ClientHttpResponse response) throws IOException {
+            super(response.getBody());
+            this.response = response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                response.close();
+            }
+        }
+    }
+}
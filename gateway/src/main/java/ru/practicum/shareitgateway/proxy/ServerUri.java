@@ -0,0 +1,40 @@
+package ru.practicum.shareitgateway.proxy;
+
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Относительный URI запроса к серверу. Значения параметров подставляются как переменные шаблона
+ * и кодируются целиком, поэтому &, +, #, фигурные скобки и пробелы из них доходят до сервера как есть,
+ * а не делят и не обрезают строку запроса.
+ */
+public final class ServerUri {
+    private final UriComponentsBuilder builder;
+    private final Map<String, Object> values = new HashMap<>();
+
+    private ServerUri(String path) {
+        this.builder = UriComponentsBuilder.fromPath(path);
+    }
+
+    public static ServerUri of(String path) {
+        return new ServerUri(path);
+    }
+
+    /**
+     * Добавляет параметр запроса; параметр со значением null не передаётся.
+     */
+    public ServerUri param(String name, Object value) {
+        if (value != null) {
+            builder.queryParam(name, "{" + name + "}");
+            values.put(name, value);
+        }
+        return this;
+    }
+
+    public URI toUri() {
+        return builder.encode().buildAndExpand(values).toUri();
+    }
+}
@@ -1,84 +1,72 @@
 package ru.practicum.shareitgateway.request;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
+import ru.practicum.shareitgateway.proxy.ServerUri;
 import ru.practicum.shareitgateway.request.dto.ItemRequestDto;
-import ru.practicum.shareitgateway.config.AppConfig;
+
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/requests")
-@Slf4j
 @RequiredArgsConstructor
 public class ItemRequestController {
 
-    private final RestTemplate restTemplate;
-    private final AppConfig appConfig;
+    private final ServerProxy serverProxy;
 
     @PostMapping
-    public ResponseEntity<Object> createRequest(
+    public ResponseEntity<Resource> createRequest(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @Valid @RequestBody ItemRequestDto requestDto) {
-
-        String url = appConfig.getFullUrl("/requests");
-        log.info("POST-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<ItemRequestDto> requestEntity = new HttpEntity<>(requestDto, headers);
-
-        return restTemplate.exchange(url, HttpMethod.POST, requestEntity, Object.class);
+        return serverProxy.forward(HttpMethod.POST, ServerUri.of("/requests").toUri(), userId, requestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserRequests(
+    public ResponseEntity<Resource> getUserRequests(
             @RequestHeader("X-Sharer-User-Id") Long userId) {
-
-        String url = appConfig.getFullUrl("/requests");
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+        return serverProxy.get(ServerUri.of("/requests").toUri(), userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(
+    public ResponseEntity<Resource> getAllRequests(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "10") int size) {
-
-        String url = appConfig.getFullUrl("/requests/all?from=" + from + "&size=" + size);
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreated,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+
+        return serverProxy.get(ServerUri.of("/requests/all")
+                .param("from", from)
+                .param("size", size)
+                .param("afterCreated", afterCreated)
+                .param("afterId", afterId)
+                .toUri(), userId);
+    }
 
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+    @GetMapping("/suggestions")
+    public ResponseEntity<Resource> getSuggestions(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return serverProxy.get(ServerUri.of("/requests/suggestions")
+                .param("from", from)
+                .param("size", size)
+                .toUri(), userId);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(
+    public ResponseEntity<Resource> getRequestById(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @PathVariable Long requestId) {
-
-        String url = appConfig.getFullUrl("/requests/" + requestId);
-        log.info("GET-запрос на сервер: {}", url);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Sharer-User-Id", String.valueOf(userId));
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
-
-        return restTemplate.exchange(url, HttpMethod.GET, requestEntity, Object.class);
+        return serverProxy.get(ServerUri.of("/requests/" + requestId).toUri(), userId);
     }
 }
-
@@ -1,20 +1,42 @@
 package ru.practicum.shareitgateway;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.config.ServerClientProperties;
+
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest(classes = AppConfig.class)
+@SpringBootTest(classes = AppConfig.class, properties = {
+        "shareit-server.pool.max-total=300",
+        "shareit-server.pool.max-per-route=250",
+        "shareit-server.response-timeout=7s"
+})
 class AppConfigTest {
 
     @Autowired
     private AppConfig appConfig;
 
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager serverConnectionManager;
+
+    @Autowired
+    private ServerClientProperties properties;
+
+    @Autowired
+    private MeterBinder serverConnectionPoolMetrics;
+
     @Test
     void shouldReturnCorrectServerUrl() {
         String expectedUrl = "http://localhost:9090";
@@ -29,8 +51,25 @@ class AppConfigTest {
 
     @Test
     void shouldCreateRestTemplateWithHttpComponentsClientHttpRequestFactory() {
-        RestTemplate restTemplate = appConfig.restTemplate();
         assertThat(restTemplate.getRequestFactory()).isInstanceOf(HttpComponentsClientHttpRequestFactory.class);
     }
 
+    @Test
+    void shouldSizeConnectionPoolFromProperties() {
+        assertThat(serverConnectionManager.getMaxTotal()).isEqualTo(300);
+        assertThat(serverConnectionManager.getDefaultMaxPerRoute()).isEqualTo(250);
+        assertThat(properties.getResponseTimeout()).isEqualTo(Duration.ofSeconds(7));
+        assertThat(properties.getPool().getTimeToLive()).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldPublishConnectionPoolMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        serverConnectionPoolMetrics.bindTo(registry);
+
+        assertThat(registry.get("gateway.server.pool.max").gauge().value()).isEqualTo(300);
+        assertThat(registry.get("gateway.server.pool.leased").gauge().value()).isZero();
+        assertThat(registry.get("gateway.server.pool.pending").gauge().value()).isZero();
+        assertThat(registry.get("gateway.server.pool.available").gauge().value()).isZero();
+    }
 }
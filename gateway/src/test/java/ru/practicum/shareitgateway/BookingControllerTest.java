@@ -1,88 +1,99 @@
 package ru.practicum.shareitgateway;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.shareitgateway.booking.BookingController;
 import ru.practicum.shareitgateway.config.AppConfig;
-
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import ru.practicum.shareitgateway.config.RequestCoalescingProperties;
+import ru.practicum.shareitgateway.config.ResponseCacheProperties;
+import ru.practicum.shareitgateway.proxy.RequestCoalescer;
+import ru.practicum.shareitgateway.proxy.ResponseCache;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@ExtendWith(MockitoExtension.class)
 class BookingControllerTest {
 
     private MockMvc mockMvc;
 
-    @Mock
-    private RestTemplate restTemplate;
-
-    @Mock
-    private AppConfig appConfig;
-
-    @InjectMocks
-    private BookingController bookingController;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "serverUrl", "http://localhost:9090");
+        ResponseCache responseCache = new ResponseCache(new ResponseCacheProperties(), new SimpleMeterRegistry());
+        RequestCoalescer requestCoalescer = new RequestCoalescer(new RequestCoalescingProperties(),
+                new SimpleMeterRegistry());
+        ServerProxy serverProxy = new ServerProxy(restTemplate, appConfig, Jackson2ObjectMapperBuilder.json().build(),
+                responseCache, requestCoalescer);
+        mockMvc = MockMvcBuilders.standaloneSetup(new BookingController(serverProxy)).build();
+    }
 
     @Test
     void updateBookingStatus_ShouldReturnResponseEntity() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/bookings/1?approved=true");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/bookings/1?approved=true"))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess("{\"id\":1,\"status\":\"APPROVED\"}", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(patch("/bookings/1")
                         .header("X-Sharer-User-Id", "1")
                         .param("approved", "true"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":1,\"status\":\"APPROVED\"}"));
+        server.verify();
     }
 
     @Test
     void updateBookingStatus_ShouldHandleError() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/bookings/1?approved=true");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN, "Forbidden"));
+        server.expect(requestTo("http://localhost:9090/bookings/1?approved=true"))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":\"Forbidden\"}"));
 
         mockMvc.perform(patch("/bookings/1")
                         .header("X-Sharer-User-Id", "1")
                         .param("approved", "true"))
-                .andExpect(status().isForbidden());
+                .andExpect(status().isForbidden())
+                .andExpect(content().string("{\"error\":\"Forbidden\"}"));
     }
 
     @Test
     void getBooking_ShouldReturnResponseEntity() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/bookings/1");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/bookings/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/bookings/1")
                         .header("X-Sharer-User-Id", "1"))
                 .andExpect(status().isOk());
     }
 
-
     @Test
     void getUserBookings_ShouldReturnResponseEntity() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/bookings?state=ALL");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/bookings?state=ALL&from=0&size=10"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", "1")
@@ -92,11 +103,8 @@ class BookingControllerTest {
 
     @Test
     void getBookingsForOwner_ShouldReturnResponseEntity() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/bookings/owner?state=ALL");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/bookings/owner?state=ALL&from=0&size=10"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", "1")
@@ -106,15 +114,64 @@ class BookingControllerTest {
 
     @Test
     void getBookingsForOwner_ShouldHandleNotFound() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/bookings/owner?state=ALL");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, "Not Found"));
+        server.expect(requestTo("http://localhost:9090/bookings/owner?state=ALL&from=0&size=10"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"message\":\"Пользователь не найден\"}"));
 
         mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", "1")
                         .param("state", "ALL"))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes("{\"message\":\"Пользователь не найден\"}".getBytes()));
+    }
+
+    @Test
+    void getUserBookings_ShouldForwardPagingAndCursor() throws Exception {
+        server.expect(requestTo("http://localhost:9090/bookings?state=ALL&from=0&size=20"
+                        + "&afterStart=2030-01-01T10%3A00&afterId=5"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("afterStart", "2030-01-01T10:00:00")
+                        .param("afterId", "5")
+                        .param("size", "20"))
+                .andExpect(status().isOk());
+        server.verify();
+    }
+
+    @Test
+    void getBookingsForOwner_ShouldRejectNegativeFrom() throws Exception {
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("from", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateBookingStatuses_ShouldForwardToServer() throws Exception {
+        String results = "[{\"bookingId\":1,\"updated\":true,\"status\":\"APPROVED\",\"message\":null}]";
+        server.expect(requestTo("http://localhost:9090/bookings/status"))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(MockRestRequestMatchers.content().json("{\"bookingIds\":[1],\"approved\":true}"))
+                .andRespond(withSuccess(results, MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(patch("/bookings/status")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookingIds\":[1],\"approved\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(results));
+    }
+
+    @Test
+    void updateBookingStatuses_ShouldReturnBadRequest_WhenIdsMissing() throws Exception {
+        mockMvc.perform(patch("/bookings/status")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookingIds\":[],\"approved\":true}"))
+                .andExpect(status().isBadRequest());
     }
 }
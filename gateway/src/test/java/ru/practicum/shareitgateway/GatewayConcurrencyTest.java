@@ -0,0 +1,65 @@
+package ru.practicum.shareitgateway;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Быстрая проверка пробрасывания на виртуальных потоках: медленный сервер-заглушка держит каждый запрос,
+ * а клиенты шлют их одновременно, и до сервера одновременно доходит больше запросов, чем потоков
+ * в стандартном пуле Tomcat (200). Сравнение с пулом потоков платформы на 1000 соединений — в GatewayLoadTest.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.ru.practicum.shareitgateway=WARN",
+        "logging.level.org.springframework.web.client.RestTemplate=WARN"})
+class GatewayConcurrencyTest {
+    private static final int CLIENTS = 250;
+    private static final int PLATFORM_THREAD_LIMIT = 200;
+    private static final Duration SERVER_DELAY = Duration.ofMillis(500);
+
+    private static final SlowServer slowServer = SlowServer.start(SERVER_DELAY, CLIENTS);
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", slowServer::url);
+    }
+
+    @AfterAll
+    static void stopSlowServer() {
+        slowServer.close();
+    }
+
+    @Test
+    void shouldForwardMoreConcurrentRequestsThanPlatformThreads() {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        // Разные пользователи, чтобы ответы не брались из кэша шлюза
+        List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, CLIENTS)
+                .mapToObj(i -> HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/" + i)).build())
+                .map(request -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .toList();
+
+        assertThat(responses.stream().map(CompletableFuture::join).map(HttpResponse::statusCode))
+                .containsOnly(200);
+        assertThat(slowServer.peakInFlight()).isGreaterThan(PLATFORM_THREAD_LIMIT);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareitgateway;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочное сравнение шлюза на пуле потоков платформы Tomcat и на виртуальных потоках:
+ * 1000 одновременных соединений к медленному серверу-заглушке, один и тот же клиент и те же настройки
+ * пула соединений с сервером. Кэш и объединение запросов выключены, чтобы каждый запрос доходил до сервера.
+ * В обычный mvn test не входит, запускается профилем load: mvn test -Pload.
+ */
+@Slf4j
+@Tag("load")
+class GatewayLoadTest {
+    private static final int CONNECTIONS = 1000;
+    private static final Duration SERVER_DELAY = Duration.ofSeconds(1);
+
+    private record LoadResult(List<Integer> statuses, Duration elapsed, int peakInFlight) {
+    }
+
+    @Test
+    void virtualThreadsShouldServeMoreConcurrentConnectionsThanPlatformThreads() {
+        try (SlowServer slowServer = SlowServer.start(SERVER_DELAY, CONNECTIONS)) {
+            LoadResult platform = run(slowServer, false);
+            LoadResult virtual = run(slowServer, true);
+            log.warn("{} соединений: потоки платформы — {} мс, до сервера одновременно {}; "
+                            + "виртуальные потоки — {} мс, до сервера одновременно {}",
+                    CONNECTIONS, platform.elapsed().toMillis(), platform.peakInFlight(),
+                    virtual.elapsed().toMillis(), virtual.peakInFlight());
+
+            assertThat(platform.statuses()).hasSize(CONNECTIONS).containsOnly(200);
+            assertThat(virtual.statuses()).hasSize(CONNECTIONS).containsOnly(200);
+            assertThat(virtual.peakInFlight()).isGreaterThan(platform.peakInFlight());
+            assertThat(virtual.elapsed()).isLessThan(platform.elapsed());
+        }
+    }
+
+    private static LoadResult run(SlowServer slowServer, boolean virtualThreads) {
+        slowServer.resetPeakInFlight();
+        // Аргументы командной строки, а не properties(): те ниже по приоритету, чем application.properties
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGatewayApp.class).run(
+                "--server.port=0",
+                "--shareit-server.url=" + slowServer.url(),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--gateway.response-cache.enabled=false",
+                "--gateway.request-coalescing.enabled=false",
+                "--logging.level.ru.practicum.shareitgateway=WARN",
+                "--logging.level.org.springframework.web.client.RestTemplate=WARN");
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int port = gateway.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<Void>>> responses = IntStream.range(0, CONNECTIONS)
+                    .mapToObj(i -> HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/" + i))
+                            .build())
+                    .map(request -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding()))
+                    .toList();
+            List<Integer> statuses = responses.stream()
+                    .map(CompletableFuture::join)
+                    .map(HttpResponse::statusCode)
+                    .toList();
+            return new LoadResult(statuses, Duration.ofNanos(System.nanoTime() - start), slowServer.peakInFlight());
+        }
+    }
+}
@@ -1,42 +1,58 @@
 package ru.practicum.shareitgateway;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.match.MockRestRequestMatchers;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.config.RequestCoalescingProperties;
+import ru.practicum.shareitgateway.config.ResponseCacheProperties;
 import ru.practicum.shareitgateway.item.ItemController;
+import ru.practicum.shareitgateway.proxy.RequestCoalescer;
+import ru.practicum.shareitgateway.proxy.ResponseCache;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@ExtendWith(MockitoExtension.class)
 class ItemControllerTest {
 
     private MockMvc mockMvc;
 
-    @Mock
-    private RestTemplate restTemplate;
-
-    @Mock
-    private AppConfig appConfig;
-
-    @InjectMocks
-    private ItemController itemController;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "serverUrl", "http://localhost:9090");
+        ResponseCache responseCache = new ResponseCache(new ResponseCacheProperties(), new SimpleMeterRegistry());
+        RequestCoalescer requestCoalescer = new RequestCoalescer(new RequestCoalescingProperties(),
+                new SimpleMeterRegistry());
+        ServerProxy serverProxy = new ServerProxy(restTemplate, appConfig, Jackson2ObjectMapperBuilder.json().build(),
+                responseCache, requestCoalescer);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ItemController(serverProxy)).build();
+    }
 
     @Test
     void shouldReturnBadRequestForInvalidItem() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(itemController).build();
-
         String invalidItemJson = "{\"name\": \"\", \"description\": \"\", \"available\": null}";
 
         mockMvc.perform(post("/items")
@@ -48,30 +64,31 @@ class ItemControllerTest {
 
     @Test
     void shouldCreateItemSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(itemController).build();
-
         String validItemJson = "{\"name\": \"Laptop\", \"description\": \"Powerful laptop\", \"available\": true}";
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/items");
-        when(restTemplate.exchange(anyString(), any(), any(), any(Class.class)))
-                .thenReturn(ResponseEntity.ok().build());
+        server.expect(requestTo("http://localhost:9090/items"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andExpect(MockRestRequestMatchers.content().json(validItemJson))
+                .andRespond(withStatus(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"id\":1,\"name\":\"Laptop\"}"));
 
         mockMvc.perform(post("/items")
                         .header("X-Sharer-User-Id", "1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(validItemJson))
-                .andExpect(status().isOk());
+                .andExpect(status().isCreated())
+                .andExpect(content().string("{\"id\":1,\"name\":\"Laptop\"}"));
+        server.verify();
     }
 
     @Test
     void shouldUpdateItemSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(itemController).build();
-
-        String updateItemJson = "{\"name\": \"Updated Laptop\", \"description\": \"More powerful\", \"available\": true}";
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/items/1");
-        when(restTemplate.exchange(anyString(), any(), any(), any(Class.class)))
-                .thenReturn(ResponseEntity.ok().build());
+        String updateItemJson = "{\"name\": \"Updated Laptop\", \"description\": \"More powerful\", "
+                + "\"available\": true}";
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(method(HttpMethod.PATCH))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(patch("/items/1")
                         .header("X-Sharer-User-Id", "1")
@@ -80,32 +97,126 @@ class ItemControllerTest {
                 .andExpect(status().isOk());
     }
 
-
-
     @Test
     void shouldGetItemSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(itemController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/items/1");
-        when(restTemplate.exchange(anyString(), any(), any(), any(Class.class)))
-                .thenReturn(ResponseEntity.ok().build());
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/items/1")
                         .header("X-Sharer-User-Id", "1"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
     }
 
     @Test
     void shouldGetUserItemsSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(itemController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/items");
-        when(restTemplate.exchange(anyString(), any(), any(), any(Class.class)))
-                .thenReturn(ResponseEntity.ok().build());
+        server.expect(requestTo("http://localhost:9090/items?from=0&size=10"))
+                .andExpect(header("Accept", MediaType.APPLICATION_JSON_VALUE))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/items")
                         .header("X-Sharer-User-Id", "1"))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void shouldForwardSearchPagingParams() throws Exception {
+        HttpHeaders nextCursor = new HttpHeaders();
+        nextCursor.set("X-Next-Cursor", "3:12");
+        server.expect(requestTo("http://localhost:9090/items/search?text=drill&from=20&size=5&after=4%3A7"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON).headers(nextCursor));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .param("after", "4:7")
+                        .param("from", "20")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Next-Cursor", "3:12"));
+        server.verify();
+    }
+
+    @Test
+    void shouldEncodeSearchTextWithReservedCharacters() throws Exception {
+        server.expect(requestTo("http://localhost:9090/items/search?text=a%26b%7Bc%7D%20%2B%23d&from=0&size=10"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "a&b{c} +#d"))
+                .andExpect(status().isOk());
+        server.verify();
+    }
+
+    @Test
+    void shouldForwardAvailabilityPeriod() throws Exception {
+        server.expect(requestTo("http://localhost:9090/items/1/availability"
+                        + "?from=2030-01-01T10%3A00&to=2030-01-05T10%3A00"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2030-01-01T10:00:00")
+                        .param("to", "2030-01-05T10:00:00"))
+                .andExpect(status().isOk());
+        server.verify();
+    }
+
+    @Test
+    void shouldRejectInvalidSearchPage() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamUserItemsAsNdjson() throws Exception {
+        String ndjson = "{\"id\":1}\n{\"id\":2}\n";
+        server.expect(requestTo("http://localhost:9090/items"))
+                .andExpect(header("Accept", "application/x-ndjson"))
+                .andRespond(withSuccess(ndjson, MediaType.parseMediaType("application/x-ndjson")));
+
+        mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(ndjson));
+    }
+
+    @Test
+    void shouldStreamBulkImportBodyToServer() throws Exception {
+        String ndjson = "{\"name\":\"Drill\",\"description\":\"Drill\",\"available\":true}\n"
+                + "{\"name\":\"\"}\n";
+        String summary = "{\"total\":2,\"created\":1,\"failed\":1,\"errors\":[]}";
+        server.expect(requestTo("http://localhost:9090/items/bulk"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andExpect(header("Content-Type", "application/x-ndjson"))
+                .andExpect(MockRestRequestMatchers.content().string(ndjson))
+                .andRespond(withSuccess(summary, MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(post("/items/bulk")
+                        .header("X-Sharer-User-Id", "1")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().json(summary));
+        server.verify();
+    }
+
+    @Test
+    void shouldReturnServerErrorStatusForBulkImport() throws Exception {
+        server.expect(requestTo("http://localhost:9090/items/bulk"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"message\":\"Пользователь не найден\"}".getBytes()));
+
+        mockMvc.perform(post("/items/bulk")
+                        .header("X-Sharer-User-Id", "999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Пользователь не найден"));
+    }
 }
@@ -4,29 +4,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.web.client.RestTemplate;
-import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
 import ru.practicum.shareitgateway.request.ItemRequestController;
 
+import java.net.URI;
+
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ItemRequestController.class)
-@Import(AppConfig.class)
 class ItemRequestControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
-    private RestTemplate restTemplate;
-
-    @MockBean
-    private AppConfig appConfig;
+    private ServerProxy serverProxy;
 
     @Test
     void shouldReturnBadRequestForInvalidRequest() throws Exception {
@@ -64,6 +61,35 @@ class ItemRequestControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void shouldForwardFeedCursor() throws Exception {
+        mockMvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("afterCreated", "2030-01-01T10:00:00")
+                        .param("afterId", "7"))
+                .andExpect(status().isOk());
+
+        verify(serverProxy).get(
+                URI.create("/requests/all?from=0&size=10&afterCreated=2030-01-01T10%3A00&afterId=7"), 1L);
+    }
+
+    @Test
+    void shouldRejectInvalidFeedPage() throws Exception {
+        mockMvc.perform(get("/requests/all?from=0&size=0")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldForwardSuggestionsInbox() throws Exception {
+        mockMvc.perform(get("/requests/suggestions")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("size", "20"))
+                .andExpect(status().isOk());
+
+        verify(serverProxy).get(URI.create("/requests/suggestions?from=0&size=20"), 1L);
+    }
+
     @Test
     void shouldReturnRequestById() throws Exception {
         mockMvc.perform(get("/requests/1")
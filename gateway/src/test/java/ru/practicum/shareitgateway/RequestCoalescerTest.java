@@ -0,0 +1,195 @@
+package ru.practicum.shareitgateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareitgateway.config.RequestCoalescingProperties;
+import ru.practicum.shareitgateway.proxy.RequestCoalescer;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescerTest {
+    private static final String PATH = "/items/search?text=дрель&from=0&size=10";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseLeader = new CountDownLatch(1);
+    private final List<Thread> threads = new ArrayList<>();
+
+    private RequestCoalescingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RequestCoalescingProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseLeader.countDown();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+    }
+
+    @Test
+    void shouldShareOneUpstreamCallBetweenConcurrentIdenticalRequests() throws Exception {
+        List<ResponseEntity<Resource>> responses = new ArrayList<>();
+        startLeader(responses, () -> ResponseEntity.ok(new ByteArrayResource("[]".getBytes())));
+        List<Thread> followers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            followers.add(start(() -> record(responses, coalescer.execute(PATH, null, this::ownUpstreamCall))));
+        }
+        awaitWaiting(followers);
+
+        releaseLeader.countDown();
+        joinAll();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(responses).hasSize(21);
+        assertThat(responses.stream().map(ResponseEntity::getBody).distinct()).hasSize(1);
+        assertThat(meterRegistry.get("gateway.requests.coalesced").counter().count()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldNotCoalesceRequestsForDifferentUsers() throws Exception {
+        startLeader(new ArrayList<>(), () -> ResponseEntity.ok(new ByteArrayResource("{}".getBytes())));
+
+        coalescer.execute(PATH, 2L, this::ownUpstreamCall);
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotJoinRequestStartedBeforeMutation() throws Exception {
+        startLeader(new ArrayList<>(), () -> ResponseEntity.ok(new ByteArrayResource("{}".getBytes())));
+
+        coalescer.onMutation();
+        coalescer.execute(PATH, null, this::ownUpstreamCall);
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectWithServiceUnavailableWhenWaitersLimitReached() throws Exception {
+        properties.setMaxWaiters(0);
+        startLeader(new ArrayList<>(), () -> ResponseEntity.ok(new ByteArrayResource("{}".getBytes())));
+
+        ResponseEntity<Resource> response = coalescer.execute(PATH, null, this::ownUpstreamCall);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRespondGatewayTimeoutWithoutCallingUpstreamAfterTimeout() throws Exception {
+        properties.setTimeout(Duration.ofMillis(50));
+        startLeader(new ArrayList<>(), () -> ResponseEntity.ok(new ByteArrayResource("{}".getBytes())));
+
+        ResponseEntity<Resource> response = coalescer.execute(PATH, null, this::ownUpstreamCall);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotMultiplyCallsToUpstreamSlowerThanTimeout() throws Exception {
+        properties.setTimeout(Duration.ofMillis(100));
+        List<ResponseEntity<Resource>> responses = new ArrayList<>();
+        startLeader(responses, () -> ResponseEntity.ok(new ByteArrayResource("[]".getBytes())));
+        for (int i = 0; i < 50; i++) {
+            start(() -> record(responses, coalescer.execute(PATH, null, this::ownUpstreamCall)));
+        }
+        Thread.sleep(300);
+
+        releaseLeader.countDown();
+        joinAll();
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(responses).hasSize(51);
+        assertThat(responses).filteredOn(r -> r.getStatusCode().isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT))
+                .hasSize(50);
+    }
+
+    @Test
+    void shouldNotShareStreamedResponse() throws Exception {
+        startLeader(new ArrayList<>(),
+                () -> ResponseEntity.ok(new InputStreamResource(new ByteArrayInputStream("[]".getBytes()))));
+        Thread follower = start(() -> coalescer.execute(PATH, null, this::ownUpstreamCall));
+        awaitWaiting(List.of(follower));
+
+        releaseLeader.countDown();
+        joinAll();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    private void startLeader(List<ResponseEntity<Resource>> responses, Supplier<ResponseEntity<Resource>> response)
+            throws InterruptedException {
+        start(() -> record(responses, coalescer.execute(PATH, null, () -> {
+            upstreamCalls.incrementAndGet();
+            leaderStarted.countDown();
+            awaitRelease();
+            return response.get();
+        })));
+        leaderStarted.await();
+    }
+
+    private ResponseEntity<Resource> ownUpstreamCall() {
+        upstreamCalls.incrementAndGet();
+        return ResponseEntity.ok(new ByteArrayResource("{}".getBytes()));
+    }
+
+    private void awaitRelease() {
+        try {
+            releaseLeader.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void record(List<ResponseEntity<Resource>> responses, ResponseEntity<Resource> response) {
+        synchronized (responses) {
+            responses.add(response);
+        }
+    }
+
+    private Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+
+    // Ожидающий совпавшего запроса поток блокируется в get с таймаутом
+    private static void awaitWaiting(List<Thread> followers) throws InterruptedException {
+        for (Thread follower : followers) {
+            while (follower.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private void joinAll() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package ru.practicum.shareitgateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.config.RequestCoalescingProperties;
+import ru.practicum.shareitgateway.config.ResponseCacheProperties;
+import ru.practicum.shareitgateway.proxy.RequestCoalescer;
+import ru.practicum.shareitgateway.proxy.ResponseCache;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ServerProxyTest {
+
+    private RestTemplate restTemplate;
+    private AppConfig appConfig;
+    private MockRestServiceServer server;
+    private ServerProxy serverProxy;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "serverUrl", "http://localhost:9090");
+        serverProxy = proxyWith(new ResponseCacheProperties());
+    }
+
+    private ServerProxy proxyWith(ResponseCacheProperties cacheProperties) {
+        ResponseCache responseCache = new ResponseCache(cacheProperties, new SimpleMeterRegistry());
+        RequestCoalescer requestCoalescer = new RequestCoalescer(new RequestCoalescingProperties(),
+                new SimpleMeterRegistry());
+        return new ServerProxy(restTemplate, appConfig, Jackson2ObjectMapperBuilder.json().build(), responseCache,
+                requestCoalescer);
+    }
+
+    private static String bodyOf(ResponseEntity<Resource> response) throws IOException {
+        try (InputStream body = response.getBody().getInputStream()) {
+            return StreamUtils.copyToString(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void shouldPassStatusHeadersAndBodyBytesThrough() throws IOException {
+        HttpHeaders upstreamHeaders = new HttpHeaders();
+        upstreamHeaders.set(HttpHeaders.CONNECTION, "keep-alive");
+        upstreamHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        upstreamHeaders.set(HttpHeaders.ETAG, "\"42\"");
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(header(ServerProxy.USER_ID_HEADER, "7"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(upstreamHeaders)
+                        .body("{\"message\":\"Вещь не найдена\"}"));
+
+        ResponseEntity<Resource> response = serverProxy.get(URI.create("/items/1"), 7L);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"42\"");
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONNECTION)).isFalse();
+        assertThat(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING)).isFalse();
+        try (InputStream body = response.getBody().getInputStream()) {
+            assertThat(StreamUtils.copyToString(body, StandardCharsets.UTF_8))
+                    .isEqualTo("{\"message\":\"Вещь не найдена\"}");
+        }
+    }
+
+    @Test
+    void shouldReturnBadGatewayWhenServerUnavailable() throws IOException {
+        server.expect(requestTo("http://localhost:9090/users"))
+                .andRespond(withException(new IOException("Connection refused")));
+
+        ResponseEntity<Resource> response = serverProxy.forward(HttpMethod.POST, URI.create("/users"), null, "{}");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(response.getBody().getContentAsString(StandardCharsets.UTF_8)).contains("Произошла ошибка на шлюзе");
+    }
+
+    @Test
+    void shouldServeRepeatedGetFromCache() throws IOException {
+        server.expect(ExpectedCount.once(), requestTo("http://localhost:9090/users/1"))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Resource> first = serverProxy.get(URI.create("/users/1"), null);
+        ResponseEntity<Resource> second = serverProxy.get(URI.create("/users/1"), null);
+
+        server.verify();
+        assertThat(bodyOf(first)).isEqualTo("{\"id\":1}");
+        assertThat(bodyOf(second)).isEqualTo("{\"id\":1}");
+        assertThat(second.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(first.getHeaders().getETag()).isNotNull().isEqualTo(second.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldInvalidateCachedResponsesOnMutatingRequest() throws IOException {
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"name\":\"old\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(method(HttpMethod.PATCH))
+                .andRespond(withSuccess("{\"name\":\"new\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"name\":\"new\"}", MediaType.APPLICATION_JSON));
+
+        bodyOf(serverProxy.get(URI.create("/users/1"), null));
+        bodyOf(serverProxy.forward(HttpMethod.PATCH, URI.create("/users/1"), 1L, "{}"));
+        String afterUpdate = bodyOf(serverProxy.get(URI.create("/users/1"), null));
+
+        server.verify();
+        assertThat(afterUpdate).isEqualTo("{\"name\":\"new\"}");
+    }
+
+    @Test
+    void shouldInvalidateItemsOnBookingChange() throws IOException {
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/bookings/5?approved=true"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        bodyOf(serverProxy.get(URI.create("/items/1"), 1L));
+        bodyOf(serverProxy.forward(HttpMethod.PATCH, URI.create("/bookings/5?approved=true"), 1L, null));
+        bodyOf(serverProxy.get(URI.create("/items/1"), 1L));
+
+        server.verify();
+    }
+
+    @Test
+    void shouldInvalidateSearchOnNewBooking() throws IOException {
+        server.expect(requestTo("http://localhost:9090/items/search?text=drill&from=0&size=10"))
+                .andRespond(withSuccess("[{\"nextBooking\":null}]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/bookings"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/items/search?text=drill&from=0&size=10"))
+                .andRespond(withSuccess("[{\"nextBooking\":{\"id\":5}}]", MediaType.APPLICATION_JSON));
+
+        bodyOf(serverProxy.get(URI.create("/items/search?text=drill&from=0&size=10"), 1L));
+        bodyOf(serverProxy.forward(HttpMethod.POST, URI.create("/bookings"), 2L, "{}"));
+        String afterBooking = bodyOf(serverProxy.get(URI.create("/items/search?text=drill&from=0&size=10"), 1L));
+
+        server.verify();
+        assertThat(afterBooking).isEqualTo("[{\"nextBooking\":{\"id\":5}}]");
+    }
+
+    @Test
+    void shouldKeepSeparateEntriesPerUserForUserScopedRoutes() throws IOException {
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(header(ServerProxy.USER_ID_HEADER, "1"))
+                .andRespond(withSuccess("{\"owner\":true}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(header(ServerProxy.USER_ID_HEADER, "2"))
+                .andRespond(withSuccess("{\"owner\":false}", MediaType.APPLICATION_JSON));
+
+        assertThat(bodyOf(serverProxy.get(URI.create("/items/1"), 1L))).isEqualTo("{\"owner\":true}");
+        assertThat(bodyOf(serverProxy.get(URI.create("/items/1"), 2L))).isEqualTo("{\"owner\":false}");
+        assertThat(bodyOf(serverProxy.get(URI.create("/items/1"), 1L))).isEqualTo("{\"owner\":true}");
+
+        server.verify();
+    }
+
+    @Test
+    void shouldNotCacheErrorsOrLargeBodies() throws IOException {
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties();
+        cacheProperties.setMaxBodyBytes(4);
+        ServerProxy proxy = proxyWith(cacheProperties);
+        server.expect(ExpectedCount.twice(), requestTo("http://localhost:9090/users/1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body("{}"));
+        server.expect(ExpectedCount.twice(), requestTo("http://localhost:9090/users/2"))
+                .andRespond(withSuccess("{\"id\":2}", MediaType.APPLICATION_JSON));
+
+        assertThat(proxy.get(URI.create("/users/1"), null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(proxy.get(URI.create("/users/1"), null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(bodyOf(proxy.get(URI.create("/users/2"), null))).isEqualTo("{\"id\":2}");
+        assertThat(bodyOf(proxy.get(URI.create("/users/2"), null))).isEqualTo("{\"id\":2}");
+
+        server.verify();
+    }
+
+    @Test
+    void shouldRevalidateExpiredResponseWithServerEtag() throws IOException {
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties();
+        cacheProperties.setUserTtl(Duration.ZERO);
+        ServerProxy proxy = proxyWith(cacheProperties);
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.ETAG, "\"v1\""));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, "\"v1\""));
+
+        bodyOf(proxy.get(URI.create("/users/1"), null));
+        ResponseEntity<Resource> revalidated = proxy.get(URI.create("/users/1"), null);
+
+        server.verify();
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidated.getHeaders().getETag()).isEqualTo("\"v1\"");
+        assertThat(bodyOf(revalidated)).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void shouldReplaceExpiredResponseWhenServerReturnsNewVersion() throws IOException {
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties();
+        cacheProperties.setUserTtl(Duration.ZERO);
+        ServerProxy proxy = proxyWith(cacheProperties);
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andRespond(withSuccess("{\"name\":\"old\"}", MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.ETAG, "\"v1\""));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withSuccess("{\"name\":\"new\"}", MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.ETAG, "\"v2\""));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v2\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, "\"v2\""));
+
+        bodyOf(proxy.get(URI.create("/users/1"), null));
+        String changed = bodyOf(proxy.get(URI.create("/users/1"), null));
+        String revalidated = bodyOf(proxy.get(URI.create("/users/1"), null));
+
+        server.verify();
+        assertThat(changed).isEqualTo("{\"name\":\"new\"}");
+        assertThat(revalidated).isEqualTo("{\"name\":\"new\"}");
+    }
+}
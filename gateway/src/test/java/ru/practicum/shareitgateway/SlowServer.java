@@ -0,0 +1,69 @@
+package ru.practicum.shareitgateway;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сервер-заглушка для нагрузочных проверок шлюза: держит каждый запрос delay и отвечает {"id":1}.
+ * Запоминает наибольшее число одновременно обрабатываемых запросов.
+ */
+final class SlowServer implements AutoCloseable {
+    private final HttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private SlowServer(Duration delay, int backlog) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), backlog);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delay);
+                byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    static SlowServer start(Duration delay, int backlog) {
+        try {
+            return new SlowServer(delay, backlog);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    void resetPeakInFlight() {
+        peakInFlight.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
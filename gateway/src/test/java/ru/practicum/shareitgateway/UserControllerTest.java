@@ -1,43 +1,58 @@
 package ru.practicum.shareitgateway;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.shareitgateway.config.AppConfig;
+import ru.practicum.shareitgateway.config.RequestCoalescingProperties;
+import ru.practicum.shareitgateway.config.ResponseCacheProperties;
+import ru.practicum.shareitgateway.proxy.RequestCoalescer;
+import ru.practicum.shareitgateway.proxy.ResponseCache;
+import ru.practicum.shareitgateway.proxy.ServerProxy;
 import ru.practicum.shareitgateway.user.UserController;
 
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@ExtendWith(MockitoExtension.class)
 class UserControllerTest {
 
     private MockMvc mockMvc;
 
-    @Mock
-    private RestTemplate restTemplate;
-
-    @Mock
-    private AppConfig appConfig;
-
-    @InjectMocks
-    private UserController userController;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "serverUrl", "http://localhost:9090");
+        ResponseCache responseCache = new ResponseCache(new ResponseCacheProperties(), new SimpleMeterRegistry());
+        RequestCoalescer requestCoalescer = new RequestCoalescer(new RequestCoalescingProperties(),
+                new SimpleMeterRegistry());
+        ServerProxy serverProxy = new ServerProxy(restTemplate, appConfig, Jackson2ObjectMapperBuilder.json().build(),
+                responseCache, requestCoalescer);
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserController(serverProxy)).build();
+    }
 
     @Test
     void shouldReturnBadRequestForInvalidUser() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
         String invalidUserJson = "{\"name\": \"\", \"email\": \"invalidEmail\"}";
 
         mockMvc.perform(post("/users")
@@ -48,13 +63,11 @@ class UserControllerTest {
 
     @Test
     void shouldCreateUserSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
         String validUserJson = "{\"name\": \"John Doe\", \"email\": \"john@example.com\"}";
 
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/users");
-        when(restTemplate.postForEntity(anyString(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.CREATED));
+        server.expect(requestTo("http://localhost:9090/users"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).body("{}"));
 
         mockMvc.perform(post("/users")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -64,13 +77,11 @@ class UserControllerTest {
 
     @Test
     void shouldUpdateUserSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
         String updateUserJson = "{\"name\": \"Updated Name\", \"email\": \"updated@example.com\"}";
 
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/users/1");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(method(HttpMethod.PATCH))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(patch("/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -80,8 +91,6 @@ class UserControllerTest {
 
     @Test
     void shouldReturnBadRequestForInvalidPatchRequest() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
         String invalidPatchJson = "{\"name\": \"\", \"email\": \"not-an-email\"}";
 
         mockMvc.perform(patch("/users/1")
@@ -92,11 +101,9 @@ class UserControllerTest {
 
     @Test
     void shouldDeleteUserSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/users/1");
-        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andExpect(method(HttpMethod.DELETE))
+                .andRespond(withSuccess());
 
         mockMvc.perform(delete("/users/1"))
                 .andExpect(status().isOk());
@@ -104,11 +111,9 @@ class UserControllerTest {
 
     @Test
     void shouldGetUserByIdSuccessfully() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/users/1");
-        when(restTemplate.getForEntity(anyString(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("{\"id\":1, \"name\":\"John Doe\", \"email\":\"john@example.com\"}", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/users/1"))
+                .andRespond(withSuccess("{\"id\":1, \"name\":\"John Doe\", \"email\":\"john@example.com\"}",
+                        MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/users/1"))
                 .andExpect(status().isOk())
@@ -118,11 +123,9 @@ class UserControllerTest {
 
     @Test
     void shouldReturnAllUsers() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/users/");
-        when(restTemplate.getForEntity(anyString(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("[{\"id\":1,\"name\":\"John Doe\",\"email\":\"john@example.com\"}]", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/users/"))
+                .andRespond(withSuccess("[{\"id\":1,\"name\":\"John Doe\",\"email\":\"john@example.com\"}]",
+                        MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
@@ -131,14 +134,46 @@ class UserControllerTest {
 
     @Test
     void shouldHandleEmptyUserList() throws Exception {
-        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
-
-        when(appConfig.getFullUrl(anyString())).thenReturn("http://localhost:8080/users/");
-        when(restTemplate.getForEntity(anyString(), eq(Object.class)))
-                .thenReturn(new ResponseEntity<>("[]", HttpStatus.OK));
+        server.expect(requestTo("http://localhost:9090/users/"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
                 .andExpect(content().json("[]"));
     }
+
+    @Test
+    void shouldPassConflictBodyThroughUnchanged() throws Exception {
+        String conflict = "{\"success\":false,\"error\":\"Conflict\",\"message\":\"Email уже используется\"}";
+        server.expect(requestTo("http://localhost:9090/users"))
+                .andRespond(withStatus(HttpStatus.CONFLICT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(conflict.getBytes()));
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"John Doe\", \"email\": \"john@example.com\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(content().bytes(conflict.getBytes()));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForMatchingEtagWithoutCallingServer() throws Exception {
+        server.expect(ExpectedCount.once(), requestTo("http://localhost:9090/users/1"))
+                .andRespond(withSuccess("{\"id\":1}", MediaType.APPLICATION_JSON));
+
+        String etag = mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":1}"));
+
+        server.verify();
+    }
 }
@@ -0,0 +1,38 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Последовательности для идентификаторов сущностей. Hibernate берёт из них сразу по ALLOCATION_SIZE
+ * значений (pooled-оптимизатор), поэтому вставки не требуют отдельного обращения к БД за каждым id
+ * и могут уходить пакетами. Начальное значение зависит от уже существующих строк, поэтому миграция
+ * написана на Java: START WITH в H2 и PostgreSQL принимает только константу.
+ */
+public class V5__add_id_sequences extends BaseJavaMigration {
+    // Должно совпадать с allocationSize в @SequenceGenerator сущностей
+    private static final int ALLOCATION_SIZE = 50;
+    private static final List<String> TABLES = List.of("users", "requests", "items", "bookings", "comments",
+            "request_suggestions");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long maxId;
+                try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                    resultSet.next();
+                    maxId = resultSet.getLong(1);
+                }
+                // Pooled-оптимизатор считает полученное значение верхней границей блока,
+                // поэтому первый блок (maxId, maxId + ALLOCATION_SIZE] не пересекается с существующими id
+                statement.execute("CREATE SEQUENCE " + table + "_seq START WITH " + (maxId + ALLOCATION_SIZE)
+                        + " INCREMENT BY " + ALLOCATION_SIZE);
+            }
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.booking.service.BookingService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -32,6 +36,13 @@ public class BookingController {
         return bookingService.updateBookingStatus(ownerId, bookingId, approved);
     }
 
+    @PatchMapping("/status")
+    public List<BookingStatusResultDto> updateBookingStatuses(
+            @RequestHeader("X-Sharer-User-Id") Long ownerId,
+            @RequestBody BookingStatusUpdateDto statusUpdateDto) {
+        return bookingService.updateBookingStatuses(ownerId, statusUpdateDto);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto getBooking(
             @RequestHeader("X-Sharer-User-Id") Long userId,
@@ -42,15 +53,25 @@ public class BookingController {
     @GetMapping
     public List<BookingResponseDto> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "ALL") String state) {
-        return bookingService.getUserBookings(userId, state);
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterStart,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size) {
+        return bookingService.getUserBookings(userId, state, afterStart, afterId, from, size);
     }
 
     @GetMapping("/owner")
     public List<BookingResponseDto> getOwnerBookings(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "ALL") String state) {
-        return bookingService.getOwnerBookings(userId, state);
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterStart,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size) {
+        return bookingService.getOwnerBookings(userId, state, afterStart, afterId, from, size);
     }
 }
 
@@ -0,0 +1,226 @@
+package ru.practicum.shareit.booking.availability;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingOwnerView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Отсортированные по началу интервалы занятости (WAITING и APPROVED бронирования) для каждой вещи.
+ * Интервалы вещи загружаются из БД при первом обращении и затем обновляются инкрементально
+ * после фиксации транзакций createBooking/updateBookingStatus/updateBookingStatuses.
+ * Чтобы не расходиться с изменениями, сделанными другими экземплярами сервера, данные вещи периодически перечитываются.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    public static final Set<BookingStatus> BUSY_STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private static final int MAX_CACHED_ITEMS = 10_000;
+    private static final Duration RELOAD_INTERVAL = Duration.ofMinutes(5);
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, ItemIntervals> itemIntervals = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ItemIntervals> eldest) {
+                    return size() > MAX_CACHED_ITEMS;
+                }
+            });
+    // Структуры, которые сейчас загружаются из БД: изменения, зафиксированные во время чтения, применяются
+    // и к ним. Доступ — под монитором itemIntervals, под ним же загруженная структура публикуется
+    private final Map<Long, List<ItemIntervals>> loadingIntervals = new HashMap<>();
+
+    /**
+     * Объединённые интервалы занятости вещи, пересекающиеся с [from, to) и обрезанные по его границам.
+     */
+    public List<TimeIntervalDto> findBusyIntervals(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return getOrLoad(itemId).findBusy(from, to);
+    }
+
+    /**
+     * Учитывает новое или изменённое бронирование. Внутри транзакции изменение применяется
+     * только после её успешной фиксации.
+     */
+    public void onBookingChanged(Booking booking) {
+        onBookingChanged(booking.getItem().getId(),
+                new BookedInterval(booking.getId(), booking.getStart(), booking.getEnd()), booking.getStatus());
+    }
+
+    /**
+     * То же для бронирования, статус которого изменён массовым обновлением без загрузки сущности.
+     */
+    public void onStatusChanged(BookingOwnerView booking, BookingStatus status) {
+        onBookingChanged(booking.itemId(), new BookedInterval(booking.id(), booking.start(), booking.end()), status);
+    }
+
+    private void onBookingChanged(Long itemId, BookedInterval interval, BookingStatus status) {
+        boolean busy = BUSY_STATUSES.contains(status);
+
+        Runnable apply = () -> {
+            synchronized (itemIntervals) {
+                ItemIntervals intervals = itemIntervals.get(itemId);
+                if (intervals != null) {
+                    intervals.apply(interval, busy);
+                }
+                for (ItemIntervals loading : loadingIntervals.getOrDefault(itemId, List.of())) {
+                    loading.apply(interval, busy);
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private ItemIntervals getOrLoad(Long itemId) {
+        ItemIntervals intervals = itemIntervals.get(itemId);
+        if (intervals != null && !intervals.isExpired()) {
+            return intervals;
+        }
+
+        // Новая структура заполняется отдельно и заменяет прежнюю (если та есть, она до этого продолжает
+        // отвечать на запросы) только полностью загруженной. Изменения, зафиксированные во время чтения из БД,
+        // попадают в неё через loadingIntervals
+        ItemIntervals loading = new ItemIntervals(LocalDateTime.now().plus(RELOAD_INTERVAL));
+        synchronized (itemIntervals) {
+            loadingIntervals.computeIfAbsent(itemId, key -> new ArrayList<>()).add(loading);
+        }
+        try {
+            for (Booking booking : bookingRepository.findByItemIdAndStatusIn(itemId, BUSY_STATUSES)) {
+                loading.load(new BookedInterval(booking.getId(), booking.getStart(), booking.getEnd()));
+            }
+            loading.finishLoading();
+            synchronized (itemIntervals) {
+                itemIntervals.put(itemId, loading);
+            }
+            return loading;
+        } finally {
+            synchronized (itemIntervals) {
+                List<ItemIntervals> loads = loadingIntervals.get(itemId);
+                loads.remove(loading);
+                if (loads.isEmpty()) {
+                    loadingIntervals.remove(itemId);
+                }
+            }
+        }
+    }
+
+    private record BookedInterval(Long bookingId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final class ItemIntervals {
+        private static final Comparator<BookedInterval> BY_START = Comparator
+                .comparing(BookedInterval::start)
+                .thenComparing(BookedInterval::bookingId);
+
+        private final NavigableMap<BookedInterval, Boolean> byStart = new TreeMap<>(BY_START);
+        private final Map<Long, BookedInterval> byBookingId = new HashMap<>();
+        // Бронирования, изменённые во время загрузки; после неё не нужны
+        private final Set<Long> changedBookingIds = new HashSet<>();
+        private final LocalDateTime expiresAt;
+        private boolean loaded;
+        // Самый длинный интервал ограничивает, насколько раньше from нужно начинать просмотр
+        private Duration maxDuration = Duration.ZERO;
+
+        private ItemIntervals(LocalDateTime expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return LocalDateTime.now().isAfter(expiresAt);
+        }
+
+        synchronized void apply(BookedInterval interval, boolean busy) {
+            if (!loaded) {
+                changedBookingIds.add(interval.bookingId());
+            }
+            remove(interval.bookingId());
+            if (busy) {
+                add(interval);
+            }
+        }
+
+        synchronized void load(BookedInterval interval) {
+            // Данные из БД не должны перетирать более свежее инкрементальное изменение
+            if (!changedBookingIds.contains(interval.bookingId())) {
+                remove(interval.bookingId());
+                add(interval);
+            }
+        }
+
+        synchronized void finishLoading() {
+            loaded = true;
+            changedBookingIds.clear();
+        }
+
+        synchronized List<TimeIntervalDto> findBusy(LocalDateTime from, LocalDateTime to) {
+            BookedInterval lower = new BookedInterval(Long.MIN_VALUE, from.minus(maxDuration), null);
+            BookedInterval upper = new BookedInterval(Long.MIN_VALUE, to, null);
+
+            List<TimeIntervalDto> merged = new ArrayList<>();
+            TimeIntervalDto current = null;
+            for (BookedInterval interval : byStart.subMap(lower, true, upper, false).keySet()) {
+                if (!interval.end().isAfter(from)) {
+                    continue;
+                }
+                LocalDateTime start = interval.start().isBefore(from) ? from : interval.start();
+                LocalDateTime end = interval.end().isAfter(to) ? to : interval.end();
+                if (current != null && !start.isAfter(current.getEnd())) {
+                    if (end.isAfter(current.getEnd())) {
+                        current.setEnd(end);
+                    }
+                } else {
+                    current = new TimeIntervalDto(start, end);
+                    merged.add(current);
+                }
+            }
+            return merged;
+        }
+
+        private void add(BookedInterval interval) {
+            byStart.put(interval, Boolean.TRUE);
+            byBookingId.put(interval.bookingId(), interval);
+            Duration duration = Duration.between(interval.start(), interval.end());
+            if (duration.compareTo(maxDuration) > 0) {
+                maxDuration = duration;
+            }
+        }
+
+        private void remove(Long bookingId) {
+            BookedInterval previous = byBookingId.remove(bookingId);
+            if (previous != null) {
+                byStart.remove(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Владелец вещи, интервал и статус бронирования: достаточно для проверки прав и пересечений
+ * и обновления индекса занятости без загрузки сущностей.
+ */
+public record BookingOwnerView(Long id, Long itemId, Long ownerId, LocalDateTime start, LocalDateTime end,
+                               BookingStatus status) {
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
+
+/**
+ * Итог массового подтверждения по одному бронированию: новый статус, если оно обновлено,
+ * иначе причина отказа.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatusResultDto {
+    private Long bookingId;
+
+    private boolean updated;
+
+    private BookingStatus status;
+
+    private String message;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская проекция бронирования для списков: только поля, которые попадают в BookingResponseDto.
+ */
+public record BookingView(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                          Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                          Long itemRequestId, Long bookerId, String bookerName, String bookerEmail) {
+}
@@ -1,8 +1,11 @@
 package ru.practicum.shareit.booking.mapper;
 
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 
@@ -18,4 +21,16 @@ public class BookingMapper {
         );
     }
 
+    public static BookingResponseDto toBookingDto(BookingView booking) {
+        return new BookingResponseDto(
+                booking.id(),
+                booking.start(),
+                booking.end(),
+                new ItemDto(booking.itemId(), booking.itemName(), booking.itemDescription(), booking.itemAvailable(),
+                        booking.itemRequestId(), null, null, null),
+                new UserDto(booking.bookerId(), booking.bookerName(), booking.bookerEmail()),
+                booking.status()
+        );
+    }
+
 }
@@ -1,38 +1,74 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingOwnerView;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.item.model.Item;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    List<Booking> findByItemOwnerId(Long ownerId);
+    // Ответ по бронированию строится из вещи и арендатора, поэтому загружаем их одним запросом
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findById(Long id);
 
-    // Найти все бронирования пользователя (сортировка по дате начала)
-    List<Booking> findByBookerIdOrderByStartDesc(Long bookerId);
+    List<Booking> findByItemOwnerId(Long ownerId);
 
     // Найти все бронирования владельца вещи (сортировка по дате начала)
     List<Booking> findByItemOwnerIdOrderByStartDesc(Long ownerId);
 
+    // Списки бронирований отдаются страницами в порядке (start, id) по убыванию: курсор (afterStart, afterId)
+    // указывает на последнюю строку предыдущей страницы, поэтому глубокие страницы не требуют OFFSET
+    // Условие start <= :afterStart дублирует OR, но даёт планировщику диапазон по индексу (booker_id, start_time, id):
+    // по одному OR ни H2, ни PostgreSQL границу диапазона не выводят и читают все бронирования пользователя,
+    // отбрасывая уже отданные. Так же устроен курсор ленты запросов в ItemRequestRepository.findFeed
+    String KEYSET = "AND b.start <= :afterStart " +
+            "AND (b.start < :afterStart OR (b.start = :afterStart AND b.id < :afterId)) " +
+            "ORDER BY b.start DESC, b.id DESC";
+
+    // Списки отдаются проекцией только нужных ответу колонок: без управляемых сущностей и dirty checking
+    String VIEW = "SELECT new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, i.request.id, u.id, u.name, u.email) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u ";
+
+    // Найти все бронирования пользователя
+    @Query(VIEW + "WHERE b.booker.id = :userId " + KEYSET)
+    List<BookingView> findBookerBookings(@Param("userId") Long userId, @Param("afterStart") LocalDateTime afterStart,
+                                         @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW + "WHERE b.booker.id = :userId AND b.status = :status " + KEYSET)
+    List<BookingView> findBookerBookingsByStatus(@Param("userId") Long userId, @Param("status") BookingStatus status,
+                                                 @Param("afterStart") LocalDateTime afterStart,
+                                                 @Param("afterId") Long afterId, Pageable pageable);
+
     // Найти текущие бронирования пользователя
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.start <= :now AND b.end >= :now")
-    List<Booking> findCurrentBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(VIEW + "WHERE b.booker.id = :userId AND b.start <= :now AND b.end >= :now " + KEYSET)
+    List<BookingView> findCurrentBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                          @Param("afterStart") LocalDateTime afterStart,
+                                          @Param("afterId") Long afterId, Pageable pageable);
 
     // Найти прошедшие бронирования пользователя
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.end < :now")
-    List<Booking> findPastBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(VIEW + "WHERE b.booker.id = :userId AND b.end < :now " + KEYSET)
+    List<BookingView> findPastBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                       @Param("afterStart") LocalDateTime afterStart,
+                                       @Param("afterId") Long afterId, Pageable pageable);
 
     // Найти будущие бронирования пользователя
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.start > :now")
-    List<Booking> findFutureBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now);
-
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(Long bookerId, BookingStatus status);
+    @Query(VIEW + "WHERE b.booker.id = :userId AND b.start > :now " + KEYSET)
+    List<BookingView> findFutureBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                         @Param("afterStart") LocalDateTime afterStart,
+                                         @Param("afterId") Long afterId, Pageable pageable);
 
     // Если нужно найти все бронирования, связанные с владельцем вещи
     List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(Long ownerId, BookingStatus status);
@@ -43,8 +79,25 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     // Найти следующее бронирование для предмета
     Booking findFirstByItemIdAndStartAfterOrderByStartAsc(Long itemId, LocalDateTime now);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findByItemIdOrderByStartDesc(Long itemId);
 
+    List<Booking> findByItemIdAndStatusIn(Long itemId, Collection<BookingStatus> statuses);
+
+    // Последние бронирования (начавшиеся до now) сразу для набора вещей — одним запросом
+    @Query(VIEW +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.start = (SELECT MAX(lb.start) FROM Booking lb WHERE lb.item.id = b.item.id AND lb.start < :now)")
+    List<BookingView> findLastBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                @Param("now") LocalDateTime now);
+
+    // Ближайшие бронирования (начинающиеся после now) сразу для набора вещей — одним запросом
+    @Query(VIEW +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.start = (SELECT MIN(nb.start) FROM Booking nb WHERE nb.item.id = b.item.id AND nb.start > :now)")
+    List<BookingView> findNextBookingsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                @Param("now") LocalDateTime now);
+
     @Query("SELECT b FROM Booking b " +
         "WHERE b.item.id = :itemId " +
         "AND b.booker.id = :bookerId " +
@@ -54,9 +107,60 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     Booking findLastCompletedBooking(@Param("itemId") Long itemId, @Param("bookerId") Long bookerId,
                                      @Param("status") BookingStatus status, @Param("end") LocalDateTime end);
 
-    @Query("SELECT b FROM Booking b WHERE b.item IN :items AND b.status = :state ORDER BY b.start DESC")
-    List<Booking> findByItemOwnerAndState(@Param("items") List<Item> items, @Param("state") String state);
-
-
+    // Есть ли у вещи бронирование в одном из статусов, пересекающееся с интервалом [start, end)
+    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status IN :statuses " +
+            "AND b.start < :end " +
+            "AND b.end > :start")
+    boolean existsOverlapping(@Param("itemId") Long itemId, @Param("start") LocalDateTime start,
+                              @Param("end") LocalDateTime end, @Param("statuses") Collection<BookingStatus> statuses);
+
+    // То же, но без учёта самого бронирования excludedId — проверка при его подтверждении
+    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status IN :statuses " +
+            "AND b.start < :end " +
+            "AND b.end > :start " +
+            "AND b.id <> :excludedId")
+    boolean existsOverlappingExcept(@Param("itemId") Long itemId, @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end,
+                                    @Param("statuses") Collection<BookingStatus> statuses,
+                                    @Param("excludedId") Long excludedId);
+
+    // Бронирования вещей владельца: фильтр по items.owner_id вместо списка вещей в IN
+    @Query(VIEW + "WHERE i.owner.id = :ownerId " + KEYSET)
+    List<BookingView> findOwnerBookings(@Param("ownerId") Long ownerId, @Param("afterStart") LocalDateTime afterStart,
+                                        @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner.id = :ownerId AND b.status = :status " + KEYSET)
+    List<BookingView> findOwnerBookingsByStatus(@Param("ownerId") Long ownerId, @Param("status") BookingStatus status,
+                                                @Param("afterStart") LocalDateTime afterStart,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner.id = :ownerId AND b.start <= :now AND b.end >= :now " + KEYSET)
+    List<BookingView> findOwnerCurrentBookings(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                               @Param("afterStart") LocalDateTime afterStart,
+                                               @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner.id = :ownerId AND b.end < :now " + KEYSET)
+    List<BookingView> findOwnerPastBookings(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                            @Param("afterStart") LocalDateTime afterStart,
+                                            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner.id = :ownerId AND b.start > :now " + KEYSET)
+    List<BookingView> findOwnerFutureBookings(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                              @Param("afterStart") LocalDateTime afterStart,
+                                              @Param("afterId") Long afterId, Pageable pageable);
+
+    // Владельцы вещей для набора бронирований — проверка прав при массовом подтверждении одним запросом
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingOwnerView(b.id, i.id, i.owner.id, b.start, b.end, " +
+            "b.status) FROM Booking b JOIN b.item i WHERE b.id IN :ids")
+    List<BookingOwnerView> findOwnerViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Меняет статус только ожидающих подтверждения бронирований; возвращает число изменённых строк
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status " +
+            "WHERE b.id IN :ids AND b.status = ru.practicum.shareit.booking.BookingStatus.WAITING")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status);
 }
-
@@ -2,7 +2,10 @@ package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
@@ -10,10 +13,14 @@ public interface BookingService {
 
     BookingResponseDto updateBookingStatus(Long ownerId, Long bookingId, boolean approved);
 
+    List<BookingStatusResultDto> updateBookingStatuses(Long ownerId, BookingStatusUpdateDto statusUpdateDto);
+
     BookingResponseDto getBooking(Long userId, Long bookingId);
 
-    List<BookingResponseDto> getUserBookings(Long userId, String state);
+    List<BookingResponseDto> getUserBookings(Long userId, String state, LocalDateTime afterStart, Long afterId,
+                                             int from, int size);
 
-    List<BookingResponseDto> getOwnerBookings(Long ownerId, String state);
+    List<BookingResponseDto> getOwnerBookings(Long ownerId, String state, LocalDateTime afterStart, Long afterId,
+                                              int from, int size);
 }
 
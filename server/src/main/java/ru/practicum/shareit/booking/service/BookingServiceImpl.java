@@ -1,40 +1,65 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.BookingIntervalIndex;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingOwnerView;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.OffsetPageRequest;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidateException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    // Статусы, в которых бронирование занимает вещь и не допускает пересечений
+    private static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(BookingStatus.WAITING,
+            BookingStatus.APPROVED);
+    // Подтверждаемое бронирование не должно пересекаться с уже подтверждёнными
+    private static final Set<BookingStatus> APPROVED_STATUSES = EnumSet.of(BookingStatus.APPROVED);
+
+    private static final LocalDateTime NO_CURSOR_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final BookingRepository bookingRepository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Override
     @Transactional
     public BookingResponseDto createBooking(Long userId, BookingDto bookingDto) {
-        User booker = userRepository.findById(userId)
+        User booker = userCache.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-        Item item = itemRepository.findById(bookingDto.getItemId())
+        Item item = itemRepository.findByIdForUpdate(bookingDto.getItemId())
                 .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
 
         if (!item.getAvailable()) {
@@ -45,9 +70,16 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidateException("Дата начала бронирования должна быть раньше даты окончания");
         }
 
+        if (bookingRepository.existsOverlapping(item.getId(), bookingDto.getStart(), bookingDto.getEnd(),
+                BLOCKING_STATUSES)) {
+            throw new ConflictException("Вещь уже забронирована на это время");
+        }
+
         Booking booking = new Booking(null, bookingDto.getStart(), bookingDto.getEnd(), item, booker,
                 BookingStatus.WAITING);
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingIntervalIndex.onBookingChanged(savedBooking);
+        return BookingMapper.toBookingDto(savedBooking);
     }
 
     @Override
@@ -60,8 +92,118 @@ public class BookingServiceImpl implements BookingService {
             throw new AccessDeniedException("Подтвердить бронирование может только владелец");
         }
 
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            throw new ValidateException("Бронирование не ожидает подтверждения");
+        }
+
+        // Блокировка вещи упорядочивает подтверждение с созданием и подтверждением других её бронирований
+        if (approved) {
+            itemRepository.findByIdForUpdate(booking.getItem().getId())
+                    .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
+            if (bookingRepository.existsOverlappingExcept(booking.getItem().getId(), booking.getStart(),
+                    booking.getEnd(), APPROVED_STATUSES, booking.getId())) {
+                throw new ConflictException("Вещь уже забронирована на это время");
+            }
+        }
+
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingIntervalIndex.onBookingChanged(savedBooking);
+        return BookingMapper.toBookingDto(savedBooking);
+    }
+
+    /**
+     * Массовое подтверждение или отклонение: права проверяются одним запросом по всем id,
+     * статус меняется одним UPDATE только у ожидающих подтверждения бронирований вещей владельца.
+     * При подтверждении вещи блокируются, как в createBooking, и бронирование не должно пересекаться
+     * ни с уже подтверждёнными, ни с подтверждаемыми в этом же запросе. Для остальных id в ответе
+     * указывается причина, порядок ответа совпадает с порядком id в запросе.
+     */
+    @Override
+    @Transactional
+    public List<BookingStatusResultDto> updateBookingStatuses(Long ownerId, BookingStatusUpdateDto statusUpdateDto) {
+        if (statusUpdateDto.getBookingIds() == null || statusUpdateDto.getBookingIds().isEmpty()) {
+            throw new ValidateException("Список бронирований не должен быть пустым");
+        }
+        if (statusUpdateDto.getApproved() == null) {
+            throw new ValidateException("Решение по бронированиям обязательно");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(statusUpdateDto.getBookingIds());
+        boolean approved = statusUpdateDto.getApproved();
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        Map<Long, BookingOwnerView> bookings = findOwnerViews(ids);
+        if (approved) {
+            // Блокировки берутся в порядке id вещей, чтобы параллельные запросы не ждали друг друга по кругу;
+            // статусы и пересечения проверяются по состоянию после блокировки
+            List<Long> itemIds = bookings.values().stream()
+                    .filter(booking -> booking.ownerId().equals(ownerId))
+                    .map(BookingOwnerView::itemId)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+            if (!itemIds.isEmpty()) {
+                itemIds.forEach(itemRepository::findByIdForUpdate);
+                bookings = findOwnerViews(ids);
+            }
+        }
+
+        List<BookingOwnerView> accepted = new ArrayList<>();
+        Map<Long, BookingStatusResultDto> results = new LinkedHashMap<>();
+        for (Long id : ids) {
+            BookingOwnerView booking = bookings.get(id);
+            if (booking == null) {
+                results.put(id, new BookingStatusResultDto(id, false, null, "Бронирование не найдено"));
+            } else if (!booking.ownerId().equals(ownerId)) {
+                results.put(id, new BookingStatusResultDto(id, false, null,
+                        "Подтвердить бронирование может только владелец"));
+            } else if (booking.status() != BookingStatus.WAITING) {
+                results.put(id, notWaiting(id));
+            } else if (approved && overlapsApproved(booking, accepted)) {
+                results.put(id, new BookingStatusResultDto(id, false, null, "Вещь уже забронирована на это время"));
+            } else {
+                accepted.add(booking);
+                results.put(id, new BookingStatusResultDto(id, true, status, null));
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<Long> acceptedIds = accepted.stream().map(BookingOwnerView::id).collect(Collectors.toList());
+            int updated = bookingRepository.updateStatusByIdIn(acceptedIds, status);
+            if (updated < accepted.size()) {
+                // Часть бронирований успели подтвердить или отклонить параллельно: UPDATE их пропустил
+                Map<Long, BookingOwnerView> current = findOwnerViews(acceptedIds);
+                accepted.removeIf(booking -> {
+                    BookingOwnerView now = current.get(booking.id());
+                    boolean skipped = now == null || now.status() != status;
+                    if (skipped) {
+                        results.put(booking.id(), notWaiting(booking.id()));
+                    }
+                    return skipped;
+                });
+            }
+            accepted.forEach(booking -> bookingIntervalIndex.onStatusChanged(booking, status));
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    private Map<Long, BookingOwnerView> findOwnerViews(Collection<Long> ids) {
+        return bookingRepository.findOwnerViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookingOwnerView::id, Function.identity()));
+    }
+
+    // Пересечение с подтверждёнными бронированиями вещи и с уже принятыми в этом запросе
+    private boolean overlapsApproved(BookingOwnerView booking, List<BookingOwnerView> accepted) {
+        boolean overlapsBatch = accepted.stream()
+                .anyMatch(other -> other.itemId().equals(booking.itemId())
+                        && other.start().isBefore(booking.end())
+                        && other.end().isAfter(booking.start()));
+        return overlapsBatch || bookingRepository.existsOverlapping(booking.itemId(), booking.start(), booking.end(),
+                APPROVED_STATUSES);
+    }
+
+    private static BookingStatusResultDto notWaiting(Long id) {
+        return new BookingStatusResultDto(id, false, null, "Бронирование не ожидает подтверждения");
     }
 
     @Override
@@ -80,34 +222,41 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookingResponseDto> getUserBookings(Long userId, String state) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    public List<BookingResponseDto> getUserBookings(Long userId, String state, LocalDateTime afterStart,
+                                                    Long afterId, int from, int size) {
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
 
         BookingState bookingState = BookingState.from(state);
+        Pageable page = OffsetPageRequest.of(from, size);
+        LocalDateTime cursorStart = cursorStart(afterStart, afterId);
+        Long cursorId = afterId != null ? afterId : Long.MAX_VALUE;
 
-        List<Booking> bookings;
+        List<BookingView> bookings;
         LocalDateTime now = LocalDateTime.now();
 
         switch (bookingState) {
             case CURRENT:
-                bookings = bookingRepository.findCurrentBookings(userId, now);
+                bookings = bookingRepository.findCurrentBookings(userId, now, cursorStart, cursorId, page);
                 break;
             case PAST:
-                bookings = bookingRepository.findPastBookings(userId, now);
+                bookings = bookingRepository.findPastBookings(userId, now, cursorStart, cursorId, page);
                 break;
             case FUTURE:
-                bookings = bookingRepository.findFutureBookings(userId, now);
+                bookings = bookingRepository.findFutureBookings(userId, now, cursorStart, cursorId, page);
                 break;
             case WAITING:
-                bookings = bookingRepository.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING);
+                bookings = bookingRepository.findBookerBookingsByStatus(userId, BookingStatus.WAITING,
+                        cursorStart, cursorId, page);
                 break;
             case REJECTED:
-                bookings = bookingRepository.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED);
+                bookings = bookingRepository.findBookerBookingsByStatus(userId, BookingStatus.REJECTED,
+                        cursorStart, cursorId, page);
                 break;
             case ALL:
             default:
-                bookings = bookingRepository.findByBookerIdOrderByStartDesc(userId);
+                bookings = bookingRepository.findBookerBookings(userId, cursorStart, cursorId, page);
                 break;
         }
 
@@ -116,23 +265,62 @@ public class BookingServiceImpl implements BookingService {
                 .collect(Collectors.toList());
     }
 
-    public List<BookingResponseDto> getOwnerBookings(Long userId, String state) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDto> getOwnerBookings(Long userId, String state, LocalDateTime afterStart,
+                                                     Long afterId, int from, int size) {
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
 
-        List<Item> ownedItems = itemRepository.findByOwnerId(userId);
-        if (ownedItems.isEmpty()) {
+        if (!itemRepository.existsByOwnerId(userId)) {
             throw new NotFoundException("У пользователя нет вещей, доступ запрещен");
         }
 
-        List<Booking> bookings = bookingRepository.findByItemOwnerAndState(ownedItems, state);
+        BookingState bookingState = BookingState.from(state);
+        Pageable page = OffsetPageRequest.of(from, size);
+        LocalDateTime cursorStart = cursorStart(afterStart, afterId);
+        Long cursorId = afterId != null ? afterId : Long.MAX_VALUE;
+
+        List<BookingView> bookings;
+        LocalDateTime now = LocalDateTime.now();
+
+        switch (bookingState) {
+            case CURRENT:
+                bookings = bookingRepository.findOwnerCurrentBookings(userId, now, cursorStart, cursorId, page);
+                break;
+            case PAST:
+                bookings = bookingRepository.findOwnerPastBookings(userId, now, cursorStart, cursorId, page);
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findOwnerFutureBookings(userId, now, cursorStart, cursorId, page);
+                break;
+            case WAITING:
+                bookings = bookingRepository.findOwnerBookingsByStatus(userId, BookingStatus.WAITING,
+                        cursorStart, cursorId, page);
+                break;
+            case REJECTED:
+                bookings = bookingRepository.findOwnerBookingsByStatus(userId, BookingStatus.REJECTED,
+                        cursorStart, cursorId, page);
+                break;
+            case ALL:
+            default:
+                bookings = bookingRepository.findOwnerBookings(userId, cursorStart, cursorId, page);
+                break;
+        }
 
         return bookings.stream()
                 .map(BookingMapper::toBookingDto)
                 .collect(Collectors.toList());
     }
 
-
-
+    // Курсор задаётся парой (afterStart, afterId); без курсора начинаем с дальней даты, которая заведомо
+    // позже любого бронирования
+    private LocalDateTime cursorStart(LocalDateTime afterStart, Long afterId) {
+        if ((afterStart == null) != (afterId == null)) {
+            throw new ValidateException("Параметры afterStart и afterId задаются только вместе");
+        }
+        return afterStart != null ? afterStart : NO_CURSOR_START;
+    }
 }
 
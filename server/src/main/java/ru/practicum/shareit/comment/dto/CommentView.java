@@ -0,0 +1,9 @@
+package ru.practicum.shareit.comment.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция комментария для списков вещей: поля CommentDto и id вещи для группировки.
+ */
+public record CommentView(Long id, String text, String authorName, LocalDateTime created, Long itemId) {
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.comment.mapper;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.model.Comment;
 
 public class CommentMapper {
@@ -13,4 +14,13 @@ public class CommentMapper {
         );
     }
 
+    public static CommentDto toCommentDto(CommentView comment) {
+        return new CommentDto(
+                comment.id(),
+                comment.text(),
+                comment.authorName(),
+                comment.created()
+        );
+    }
+
 }
@@ -1,10 +1,20 @@
 package ru.practicum.shareit.comment.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = "author")
     List<Comment> findByItemId(Long itemId);
+
+    @Query("SELECT new ru.practicum.shareit.comment.dto.CommentView(c.id, c.text, a.name, c.created, c.item.id) " +
+            "FROM Comment c JOIN c.author a WHERE c.item.id IN :itemIds")
+    List<CommentView> findByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
 }
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * ETag по телу ответа на GET-запросы, ответы на которые кэширует шлюз. Шлюз перепроверяет истёкшие
+ * записи через If-None-Match, и неизменившийся ответ уходит к нему как 304 без тела.
+ */
+@Configuration
+public class EtagFilterConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/items/*", "/requests/*", "/users/*");
+        return registration;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.common;
+
+import lombok.EqualsAndHashCode;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exceptions.ValidateException;
+
+/**
+ * Пагинация по произвольному смещению from и размеру size.
+ * В отличие от PageRequest.of(from / size, size) не округляет from до границы страницы.
+ */
+@EqualsAndHashCode(callSuper = true)
+public class OffsetPageRequest extends PageRequest {
+    private final long offset;
+
+    private OffsetPageRequest(long offset, int size, Sort sort) {
+        super((int) (offset / size), size, sort);
+        this.offset = offset;
+    }
+
+    public static OffsetPageRequest of(int from, int size) {
+        return of(from, size, Sort.unsorted());
+    }
+
+    public static OffsetPageRequest of(int from, int size, Sort sort) {
+        if (from < 0 || size <= 0) {
+            throw new ValidateException("Параметр from не может быть отрицательным, а size должен быть больше нуля");
+        }
+        return new OffsetPageRequest(from, size, sort);
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -1,15 +1,27 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.service.CommentService;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
+import ru.practicum.shareit.item.dto.ItemSearchPage;
+import ru.practicum.shareit.item.importer.ItemBulkImporter;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,8 +32,14 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class ItemController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     private final ItemService itemService;
     private final CommentService commentService;
+    private final ItemBulkImporter itemBulkImporter;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -31,6 +49,21 @@ public class ItemController {
         return itemService.createItem(userId, itemDto);
     }
 
+    // Массовая загрузка: тело читается потоком, в ответе — итог по каждой отклонённой записи
+    @PostMapping(value = "/bulk", consumes = NDJSON_VALUE)
+    public ItemImportResultDto importItemsNdjson(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            InputStream body) throws IOException {
+        return itemBulkImporter.importNdjson(userId, body);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ItemImportResultDto importItemsJson(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            InputStream body) throws IOException {
+        return itemBulkImporter.importJsonArray(userId, body);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(
             @RequestHeader("X-Sharer-User-Id") Long userId,
@@ -48,13 +81,58 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemDto> getUserItems(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemService.getUserItems(userId);
+    public List<ItemDto> getUserItems(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size) {
+        return itemService.getUserItems(userId, from, size);
+    }
+
+    // Потоковая выдача всех вещей владельца: каждая вещь пишется отдельной строкой JSON,
+    // как только собрана её порция, поэтому в памяти одновременно держится не больше STREAM_CHUNK_SIZE вещей
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserItems(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        StreamingResponseBody body = out -> {
+            Long afterId = null;
+            List<ItemDto> chunk;
+            do {
+                chunk = itemService.getUserItemsAfter(userId, afterId, STREAM_CHUNK_SIZE);
+                for (ItemDto itemDto : chunk) {
+                    out.write(objectMapper.writeValueAsBytes(itemDto));
+                    out.write('\n');
+                }
+                out.flush();
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == STREAM_CHUNK_SIZE);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
+    // Курсор следующей страницы отдаётся в заголовке ответа и передаётся обратно в параметре after
     @GetMapping("/search")
-    public List<ItemDto> searchItems(@RequestParam String text) {
-        return itemService.searchItems(text);
+    public ResponseEntity<List<ItemDto>> searchItems(
+            @RequestParam String text,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size) {
+        ItemSearchPage page = itemService.searchItems(text, after, from, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getItemAvailability(
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getItemAvailability(itemId, from, to);
     }
 
     @PostMapping("/{itemId}/comment")
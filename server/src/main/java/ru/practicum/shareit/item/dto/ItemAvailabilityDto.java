@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private Long itemId;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private List<TimeIntervalDto> busy;
+
+    private List<TimeIntervalDto> free;
+}
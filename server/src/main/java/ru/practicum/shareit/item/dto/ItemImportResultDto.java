@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Итог массовой загрузки вещей: сколько записей прочитано, сохранено и отклонено,
+ * а для первых по номеру отклонённых записей (не больше 100) — номер и причина.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemImportResultDto {
+    private int total;
+
+    private int created;
+
+    private int failed;
+
+    private List<ItemImportErrorDto> errors;
+}
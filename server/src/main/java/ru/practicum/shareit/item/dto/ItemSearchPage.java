@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.dto;
+
+import java.util.List;
+
+/**
+ * Страница результатов поиска и курсор следующей страницы; nextCursor равен null, если выдача закончилась.
+ */
+public record ItemSearchPage(List<ItemDto> items, String nextCursor) {
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.dto;
+
+/**
+ * Проекция вещи для списков: поля ItemDto без бронирований и комментариев.
+ */
+public record ItemView(Long id, String name, String description, Boolean available, Long requestId) {
+}
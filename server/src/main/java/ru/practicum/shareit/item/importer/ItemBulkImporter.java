@@ -0,0 +1,245 @@
+package ru.practicum.shareit.item.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidateException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовая загрузка вещей владельца из JSON-массива или NDJSON.
+ * Тело читается потоком по одной записи, каждая запись проверяется по тем же правилам, что и ItemDto шлюза.
+ * Корректные записи копятся порциями по CHUNK_SIZE: для порции одним запросом загружаются все упомянутые
+ * запросы вещей, вещи сохраняются пакетно в отдельной транзакции, после чего контекст персистентности
+ * сбрасывается и очищается. В памяти одновременно держится не больше одной порции.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBulkImporter {
+    static final int CHUNK_SIZE = 500;
+    // Подробно в отчёте описываются только первые по номеру отклонённые записи, остальные лишь считаются
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final Comparator<ItemImportErrorDto> BY_LINE = Comparator.comparingInt(ItemImportErrorDto::getLine);
+
+    private final UserCache userCache;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Каждая непустая строка тела — отдельная вещь; номер записи в отчёте — номер строки.
+     * Строка с некорректным JSON отклоняется, разбор продолжается со следующей.
+     */
+    public ItemImportResultDto importNdjson(Long userId, InputStream body) throws IOException {
+        ImportState state = start(userId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                state.reject(line, "Некорректный JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            accept(state, line, node);
+        }
+        return finish(state);
+    }
+
+    /**
+     * Тело — JSON-массив вещей; номер записи в отчёте — порядковый номер элемента массива.
+     * После синтаксической ошибки продолжить разбор массива нельзя, поэтому загрузка на ней останавливается,
+     * а уже прочитанные записи сохраняются.
+     */
+    public ItemImportResultDto importJsonArray(Long userId, InputStream body) throws IOException {
+        ImportState state = start(userId);
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ValidateException("Ожидается JSON-массив вещей");
+            }
+            int line = 0;
+            try {
+                while (true) {
+                    line++;
+                    if (parser.nextToken() == JsonToken.END_ARRAY) {
+                        break;
+                    }
+                    accept(state, line, parser.readValueAsTree());
+                }
+            } catch (JsonProcessingException e) {
+                state.reject(line, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+        }
+        return finish(state);
+    }
+
+    private ImportState start(Long userId) {
+        User owner = userCache.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        return new ImportState(owner);
+    }
+
+    private void accept(ImportState state, int line, JsonNode node) {
+        ItemDto itemDto;
+        try {
+            itemDto = objectMapper.treeToValue(node, ItemDto.class);
+        } catch (JsonProcessingException e) {
+            state.reject(line, "Некорректная запись: " + e.getOriginalMessage());
+            return;
+        }
+        String error = validate(itemDto);
+        if (error != null) {
+            state.reject(line, error);
+            return;
+        }
+        state.pending.add(new ImportLine(line, itemDto));
+        if (state.pending.size() == CHUNK_SIZE) {
+            persist(state);
+        }
+    }
+
+    // Те же правила и сообщения, что у аннотаций ItemDto в шлюзе
+    private static String validate(ItemDto itemDto) {
+        if (itemDto == null) {
+            return "Пустая запись";
+        }
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            return "Имя вещи не должно быть пустым";
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            return "Описание вещи не должно быть пустым";
+        }
+        if (itemDto.getAvailable() == null) {
+            return "Доступность вещи обязательна";
+        }
+        return null;
+    }
+
+    private void persist(ImportState state) {
+        List<ImportLine> chunk = state.pending;
+        state.pending = new ArrayList<>(CHUNK_SIZE);
+        List<ItemImportErrorDto> missingRequests = new ArrayList<>();
+
+        List<Item> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Set<Long> requestIds = chunk.stream()
+                        .map(importLine -> importLine.item().getRequestId())
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+                Map<Long, ItemRequest> requests = requestIds.isEmpty() ? Map.of()
+                        : itemRequestRepository.findAllById(requestIds).stream()
+                        .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+                List<Item> items = new ArrayList<>(chunk.size());
+                for (ImportLine importLine : chunk) {
+                    Long requestId = importLine.item().getRequestId();
+                    ItemRequest request = requestId != null ? requests.get(requestId) : null;
+                    if (requestId != null && request == null) {
+                        missingRequests.add(new ItemImportErrorDto(importLine.line(), "Запрос не найден"));
+                        continue;
+                    }
+                    Item item = ItemMapper.toItem(importLine.item(), request);
+                    item.setId(null);
+                    item.setOwner(state.owner);
+                    items.add(item);
+                }
+                List<Item> result = itemRepository.saveAll(items);
+                entityManager.flush();
+                entityManager.clear();
+                return result;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Не удалось сохранить порцию вещей из {} записей: {}", chunk.size(), e.getMessage());
+            chunk.forEach(importLine -> state.reject(importLine.line(), "Не удалось сохранить вещь"));
+            return;
+        }
+
+        missingRequests.forEach(error -> state.reject(error.getLine(), error.getMessage()));
+        saved.forEach(itemSearchIndex::index);
+        state.created += saved.size();
+    }
+
+    private ItemImportResultDto finish(ImportState state) {
+        if (!state.pending.isEmpty()) {
+            persist(state);
+        }
+        List<ItemImportErrorDto> errors = new ArrayList<>(state.errors);
+        errors.sort(BY_LINE);
+        int failed = state.rejectedCount;
+        log.info("Массовая загрузка вещей владельца {}: сохранено {}, отклонено {}",
+                state.owner.getId(), state.created, failed);
+        return new ItemImportResultDto(state.created + failed, state.created, failed, errors);
+    }
+
+    private record ImportLine(int line, ItemDto item) {
+    }
+
+    private static class ImportState {
+        private final User owner;
+        // Ошибки порции приходят после ошибок проверки более поздних строк, поэтому храним MAX_REPORTED_ERRORS
+        // записей с наименьшими номерами: в вершине кучи — запись с наибольшим
+        private final PriorityQueue<ItemImportErrorDto> errors = new PriorityQueue<>(BY_LINE.reversed());
+        private int rejectedCount;
+        private List<ImportLine> pending = new ArrayList<>(CHUNK_SIZE);
+        private int created;
+
+        ImportState(User owner) {
+            this.owner = owner;
+        }
+
+        void reject(int line, String message) {
+            rejectedCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ItemImportErrorDto(line, message));
+            } else if (line < errors.peek().getLine()) {
+                errors.poll();
+                errors.add(new ItemImportErrorDto(line, message));
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item.mapper;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 
@@ -24,6 +25,21 @@ public class ItemMapper {
         );
     }
 
+    public static ItemDto toItemDto(ItemView item, List<BookingResponseDto> lastBooking,
+                                    List<BookingResponseDto> nextBooking, List<CommentDto> comments) {
+
+        return new ItemDto(
+                item.id(),
+                item.name(),
+                item.description(),
+                item.available(),
+                item.requestId(),
+                lastBooking != null && !lastBooking.isEmpty() ? lastBooking.get(0) : null,
+                nextBooking != null && !nextBooking.isEmpty() ? nextBooking.get(0) : null,
+                comments
+        );
+    }
+
     public static Item toItem(ItemDto itemDto, ItemRequest request) {
         return new Item(
                 itemDto.getId(),
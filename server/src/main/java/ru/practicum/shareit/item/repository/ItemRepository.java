@@ -1,22 +1,58 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchDocument;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findAllByOwnerId(Long ownerId);
+    // Списки вещей отдаются проекцией только нужных ответу колонок, без управляемых сущностей
+    String VIEW = "SELECT new ru.practicum.shareit.item.dto.ItemView(i.id, i.name, i.description, i.available, " +
+            "i.request.id) FROM Item i ";
 
-    @Query("SELECT i FROM Item i WHERE " +
-            "(LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
-            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
-            "AND i.available = true")
-    List<Item> searchByNameOrDescription(@Param("text") String text);
+    @Query(VIEW + "WHERE i.owner.id = :ownerId ORDER BY i.id")
+    List<ItemView> findOwnerItems(@Param("ownerId") Long ownerId, Pageable pageable);
 
-    List<Item> findByRequestId(Long requestId);
+    // Следующая порция вещей владельца после afterId (keyset) — для потоковой выдачи
+    @Query(VIEW + "WHERE i.owner.id = :ownerId AND i.id > :afterId ORDER BY i.id")
+    List<ItemView> findOwnerItemsAfter(@Param("ownerId") Long ownerId, @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    @Query(VIEW + "WHERE i.id IN :ids AND i.available = true")
+    List<ItemView> findAvailableByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Порция доступных вещей для построения поискового индекса (keyset по id)
+    @Query("SELECT new ru.practicum.shareit.item.search.ItemSearchDocument(i.id, i.name, i.description) " +
+            "FROM Item i WHERE i.available = true AND i.id > :afterId ORDER BY i.id")
+    List<ItemSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.request.id = :requestId ORDER BY i.id")
+    List<ItemView> findByRequestId(@Param("requestId") Long requestId);
+
+    // Вещи-ответы сразу для страницы запросов
+    @Query(VIEW + "WHERE i.request.id IN :requestIds ORDER BY i.id")
+    List<ItemView> findByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
 
     List<Item> findByOwnerId(Long ownerId);
+
+    @Query("SELECT i FROM Item i JOIN FETCH i.owner LEFT JOIN FETCH i.request " +
+            "WHERE i.id IN :ids AND i.available = true")
+    List<Item> findAvailableWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByOwnerId(Long ownerId);
+
+    // Блокируем строку вещи до конца транзакции: бронирования одной вещи проверяются на пересечение
+    // по очереди, а бронирования разных вещей друг друга не ждут
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Comparator;
+
+/**
+ * Позиция вещи в результатах поиска: релевантность и id. Служит и курсором страницы.
+ */
+public record ItemSearchHit(Long id, int score) {
+    // Порядок выдачи: по убыванию релевантности, при равенстве — по возрастанию id
+    public static final Comparator<ItemSearchHit> ORDER = Comparator.comparingInt(ItemSearchHit::score).reversed()
+            .thenComparing(ItemSearchHit::id);
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    /**
+     * Курсор в виде "релевантность:id". Позиция передаётся клиенту целиком и не пересчитывается
+     * по текущим данным вещи, поэтому её изменение между страницами не сдвигает выдачу.
+     */
+    public String toCursor() {
+        return score + CURSOR_SEPARATOR + id;
+    }
+
+    /**
+     * Разбирает курсор, полученный из {@link #toCursor()}.
+     *
+     * @throws IllegalArgumentException если строка не является курсором
+     */
+    public static ItemSearchHit fromCursor(String cursor) {
+        String[] parts = cursor.split(CURSOR_SEPARATOR, -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Курсор должен иметь вид <релевантность>:<id>: " + cursor);
+        }
+        return new ItemSearchHit(Long.valueOf(parts[1]), Integer.parseInt(parts[0]));
+    }
+}
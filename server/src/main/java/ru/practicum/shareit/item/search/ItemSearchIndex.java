@@ -0,0 +1,362 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс по названию и описанию доступных вещей.
+ * Токены приводятся к нижнему регистру, поиск идёт по префиксу каждого слова запроса,
+ * результаты ранжируются: совпадение в названии весит больше, чем в описании,
+ * точное совпадение слова — больше, чем совпадение по префиксу.
+ * Индекс заполняется при старте приложения и обновляется после фиксации транзакций, создающих и изменяющих вещи,
+ * поэтому откат не оставляет в нём несуществующих вещей и незафиксированных названий.
+ * Изменения, сделанные другими экземплярами сервера, подхватываются периодическим перестроением индекса из БД.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int WARM_UP_BATCH_SIZE = 1000;
+    private static final long RESYNC_INTERVAL_MINUTES = 5;
+
+    private final ItemRepository itemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Поля ниже читаются под lock.readLock(), меняются под lock.writeLock()
+    private Postings index = new Postings();
+    // Вещи, изменённые во время перестроения: в новый индекс переносится их текущее состояние, а не прочитанное из БД
+    private Set<Long> changedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int total = rebuild();
+        log.info("Индекс поиска вещей построен, проиндексировано вещей: {}", total);
+    }
+
+    @Scheduled(initialDelay = RESYNC_INTERVAL_MINUTES, fixedDelay = RESYNC_INTERVAL_MINUTES,
+            timeUnit = TimeUnit.MINUTES)
+    public void resync() {
+        int total = rebuild();
+        log.debug("Индекс поиска вещей перестроен из БД, проиндексировано вещей: {}", total);
+    }
+
+    /**
+     * Учитывает созданную или изменённую вещь. Внутри транзакции изменение применяется
+     * только после её успешной фиксации.
+     */
+    public void index(Item item) {
+        Long itemId = item.getId();
+        ItemSearchDocument document = Boolean.TRUE.equals(item.getAvailable())
+                ? new ItemSearchDocument(itemId, item.getName(), item.getDescription())
+                : null;
+        afterCommit(() -> apply(itemId, document));
+    }
+
+    public void remove(Long itemId) {
+        afterCommit(() -> apply(itemId, null));
+    }
+
+    private void apply(Long itemId, ItemSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(itemId);
+            }
+            index.remove(itemId);
+            if (document != null) {
+                index.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable apply) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // Новый индекс строится из БД отдельно от текущего, который всё это время обслуживает поиск,
+    // и подменяет его целиком
+    private synchronized int rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings fresh = new Postings();
+        try {
+            long afterId = 0L;
+            List<ItemSearchDocument> batch;
+            do {
+                batch = itemRepository.findSearchDocuments(afterId, PageRequest.of(0, WARM_UP_BATCH_SIZE));
+                batch.forEach(fresh::add);
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == WARM_UP_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Long itemId : changedDuringRebuild) {
+                fresh.remove(itemId);
+                IndexedItem current = index.items.get(itemId);
+                if (current != null) {
+                    fresh.put(itemId, current);
+                }
+            }
+            changedDuringRebuild = null;
+            index = fresh;
+            return fresh.items.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает id вещей, в которых каждое слово запроса является префиксом какого-либо слова
+     * названия или описания, в порядке убывания релевантности (при равенстве — по возрастанию id).
+     */
+    public List<Long> search(String text) {
+        return search(text, null, 0, Integer.MAX_VALUE).stream()
+                .map(ItemSearchHit::id)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Страница результатов поиска в порядке {@link ItemSearchHit#ORDER}. Если задан курсор after,
+     * страница начинается с первой вещи, стоящей после него в этом порядке, даже если сама вещь-курсор
+     * из выдачи уже пропала; затем пропускается offset позиций и берётся не больше limit вещей.
+     * Полная выдача не сортируется: из подходящих вещей отбираются только offset + limit первых.
+     */
+    public List<ItemSearchHit> search(String text, ItemSearchHit after, int offset, int limit) {
+        List<String> queryTokens = new ArrayList<>(tokenize(text));
+        long wanted = (long) offset + limit;
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Куча держит wanted лучших вещей, в вершине — худшая из них
+        PriorityQueue<ItemSearchHit> top = new PriorityQueue<>(ItemSearchHit.ORDER.reversed());
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(queryTokens)) {
+                ItemSearchHit hit = new ItemSearchHit(id, index.items.get(id).score(queryTokens));
+                if (after != null && ItemSearchHit.ORDER.compare(hit, after) <= 0) {
+                    continue;
+                }
+                if (top.size() < wanted) {
+                    top.add(hit);
+                } else if (ItemSearchHit.ORDER.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ItemSearchHit> ranked = new ArrayList<>(top);
+        ranked.sort(ItemSearchHit.ORDER);
+        return offset < ranked.size() ? List.copyOf(ranked.subList(offset, ranked.size())) : List.of();
+    }
+
+    // Вещи, в которых есть все слова запроса; вызывается под lock.readLock()
+    private Set<Long> candidates(List<String> queryTokens) {
+        Set<Long> candidates = null;
+        for (String queryToken : queryTokens) {
+            Set<Long> matched = new HashSet<>();
+            for (Set<Long> ids : index.postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, true)
+                    .values()) {
+                matched.addAll(ids);
+            }
+            if (candidates == null) {
+                candidates = matched;
+            } else {
+                candidates.retainAll(matched);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Вещи, у которых хотя бы одно из слов является префиксом слова названия или описания.
+     * Порядок — по убыванию числа совпавших слов, затем релевантности, затем по возрастанию id;
+     * из этого порядка пропускается offset вещей и берётся не больше limit.
+     */
+    public List<Long> searchAny(Collection<String> tokens, int offset, int limit) {
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> matchedTokens = new HashMap<>();
+            for (String token : tokens) {
+                Set<Long> matched = new HashSet<>();
+                for (Set<Long> ids : index.postings.subMap(token, true, token + Character.MAX_VALUE, true).values()) {
+                    matched.addAll(ids);
+                }
+                for (Long id : matched) {
+                    matchedTokens.merge(id, 1, Integer::sum);
+                }
+            }
+
+            List<String> queryTokens = new ArrayList<>(tokens);
+            Map<Long, Integer> scores = new HashMap<>();
+            for (Long id : matchedTokens.keySet()) {
+                scores.put(id, index.items.get(id).score(queryTokens));
+            }
+            return matchedTokens.keySet().stream()
+                    .sorted(Comparator.<Long>comparingInt(matchedTokens::get).reversed()
+                            .thenComparing(Comparator.<Long>comparingInt(scores::get).reversed())
+                            .thenComparing(Comparator.naturalOrder()))
+                    .skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Проверяет, подходит ли вещь под запрос по тем же правилам, что и индекс.
+     * Используется для сверки с актуальными данными из БД.
+     */
+    public boolean matches(ItemView item, String text) {
+        Set<String> queryTokens = tokenize(text);
+        if (queryTokens.isEmpty()) {
+            return false;
+        }
+        Set<String> itemTokens = new HashSet<>(tokenize(item.name()));
+        itemTokens.addAll(tokenize(item.description()));
+        return queryTokens.stream()
+                .allMatch(queryToken -> itemTokens.stream().anyMatch(token -> token.startsWith(queryToken)));
+    }
+
+    public static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    // Словарь токенов и токены каждой вещи; сам по себе не потокобезопасен
+    private static final class Postings {
+        private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+        private final Map<Long, IndexedItem> items = new HashMap<>();
+
+        void add(ItemSearchDocument document) {
+            put(document.id(), new IndexedItem(tokenize(document.name()), tokenize(document.description())));
+        }
+
+        void put(Long itemId, IndexedItem indexed) {
+            items.put(itemId, indexed);
+            for (String token : indexed.allTokens()) {
+                postings.computeIfAbsent(token, key -> new HashSet<>()).add(itemId);
+            }
+        }
+
+        void remove(Long itemId) {
+            IndexedItem removed = items.remove(itemId);
+            if (removed == null) {
+                return;
+            }
+            for (String token : removed.allTokens()) {
+                Set<Long> ids = postings.get(token);
+                if (ids != null) {
+                    ids.remove(itemId);
+                    if (ids.isEmpty()) {
+                        postings.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    private record IndexedItem(Set<String> nameTokens, Set<String> descriptionTokens) {
+
+        Set<String> allTokens() {
+            Set<String> tokens = new HashSet<>(nameTokens);
+            tokens.addAll(descriptionTokens);
+            return tokens;
+        }
+
+        int score(List<String> queryTokens) {
+            int score = 0;
+            for (String queryToken : queryTokens) {
+                score += fieldScore(nameTokens, queryToken, 4, 3);
+                score += fieldScore(descriptionTokens, queryToken, 2, 1);
+            }
+            return score;
+        }
+
+        private static int fieldScore(Set<String> tokens, String queryToken, int exactWeight, int prefixWeight) {
+            if (tokens.contains(queryToken)) {
+                return exactWeight;
+            }
+            for (String token : tokens) {
+                if (token.startsWith(queryToken)) {
+                    return prefixWeight;
+                }
+            }
+            return 0;
+        }
+    }
+}
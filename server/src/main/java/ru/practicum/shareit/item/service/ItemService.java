@@ -1,8 +1,11 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
+import ru.practicum.shareit.item.dto.ItemSearchPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -12,9 +15,13 @@ public interface ItemService {
 
     ItemDto getItemById(Long itemId);
 
-    List<ItemDto> getUserItems(Long userId);
+    List<ItemDto> getUserItems(Long userId, int from, int size);
 
-    List<ItemDto> searchItems(String text);
+    List<ItemDto> getUserItemsAfter(Long userId, Long afterId, int limit);
+
+    ItemSearchPage searchItems(String text, String after, int from, int size);
 
     ItemDto getItemWithCommentsAndBookings(Long itemId, Long userId);
+
+    ItemAvailabilityDto getItemAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 }
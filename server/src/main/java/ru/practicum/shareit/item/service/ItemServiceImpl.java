@@ -1,47 +1,65 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.BookingIntervalIndex;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.mapper.CommentMapper;
-import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.common.OffsetPageRequest;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidateException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
+import ru.practicum.shareit.item.dto.ItemSearchPage;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchHit;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Override
     @Transactional
     public ItemDto createItem(Long userId, ItemDto itemDto) {
-        User owner = userRepository.findById(userId)
+        User owner = userCache.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
         ItemRequest request = null;
@@ -52,7 +70,9 @@ public class ItemServiceImpl implements ItemService {
 
         Item item = ItemMapper.toItem(itemDto, request);
         item.setOwner(owner);
-        return ItemMapper.toItemDto(itemRepository.save(item), null, null, null);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.index(savedItem);
+        return ItemMapper.toItemDto(savedItem, null, null, null);
     }
 
     @Override
@@ -82,7 +102,9 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(request);
         }
 
-        return ItemMapper.toItemDto(itemRepository.save(item), null, null, null);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.index(savedItem);
+        return ItemMapper.toItemDto(savedItem, null, null, null);
     }
 
     @Override
@@ -95,60 +117,69 @@ public class ItemServiceImpl implements ItemService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemDto> getUserItems(Long userId) {
-        List<Item> items = itemRepository.findAllByOwnerId(userId);
+    public List<ItemDto> getUserItems(Long userId, int from, int size) {
+        List<ItemView> items = itemRepository.findOwnerItems(userId, OffsetPageRequest.of(from, size));
+        return enrichItems(items);
+    }
 
-        return items.stream()
-                .map(item -> {
-
-                    Booking lastBooking = bookingRepository
-                            .findFirstByItemIdAndStartBeforeOrderByStartDesc(item.getId(), LocalDateTime.now());
-                    Booking nextBooking = bookingRepository
-                            .findFirstByItemIdAndStartAfterOrderByStartAsc(item.getId(), LocalDateTime.now());
-
-                    List<Comment> comments = commentRepository.findByItemId(item.getId());
-
-                    return ItemMapper.toItemDto(
-                            item,
-                            lastBooking != null ? List.of(BookingMapper
-                                    .toBookingDto(lastBooking)) : Collections.emptyList(),  // Преобразуем в список
-                            nextBooking != null ? List.of(BookingMapper
-                                    .toBookingDto(nextBooking)) : Collections.emptyList(),
-                            comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList())
-                    );
-                })
-                .collect(Collectors.toList());
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> getUserItemsAfter(Long userId, Long afterId, int limit) {
+        List<ItemView> items = itemRepository.findOwnerItemsAfter(userId, afterId != null ? afterId : 0L,
+                OffsetPageRequest.of(0, limit));
+        return enrichItems(items);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemDto> searchItems(String text) {
+    public ItemSearchPage searchItems(String text, String after, int from, int size) {
+        Pageable page = OffsetPageRequest.of(from, size);
         if (text == null || text.isBlank()) {
-            return List.of();
+            return new ItemSearchPage(List.of(), null);
         }
 
-        List<Item> items = itemRepository.searchByNameOrDescription(text);
+        // Индекс задаёт порядок по релевантности, а актуальность данных сверяем с БД. Вещи, которые в БД
+        // уже не подходят под запрос, выпадают из страницы, и она дополняется следующими за ней позициями,
+        // поэтому короче size бывает только последняя страница. Курсор — позиция последней просмотренной
+        // вещи, а не её id: если вещь изменят до запроса следующей страницы, выдача продолжится с того же места
+        ItemSearchHit cursor = after != null ? searchCursor(after) : null;
+        int offset = (int) page.getOffset();
+        List<ItemView> items = new ArrayList<>();
+        ItemSearchHit nextCursor = null;
+        while (items.size() < page.getPageSize()) {
+            int wanted = page.getPageSize() - items.size();
+            List<ItemSearchHit> hits = itemSearchIndex.search(text, cursor, offset, wanted);
+            if (hits.isEmpty()) {
+                nextCursor = null;
+                break;
+            }
+
+            Map<Long, ItemView> foundItems = itemRepository.findAvailableByIdIn(
+                            hits.stream().map(ItemSearchHit::id).collect(Collectors.toList())).stream()
+                    .filter(item -> itemSearchIndex.matches(item, text))
+                    .collect(Collectors.toMap(ItemView::id, Function.identity()));
+            hits.stream()
+                    .map(hit -> foundItems.get(hit.id()))
+                    .filter(Objects::nonNull)
+                    .forEach(items::add);
+
+            if (hits.size() < wanted) {
+                nextCursor = null;
+                break;
+            }
+            cursor = hits.get(hits.size() - 1);
+            nextCursor = cursor;
+            offset = 0;
+        }
+        return new ItemSearchPage(enrichItems(items), nextCursor != null ? nextCursor.toCursor() : null);
+    }
 
-        return items.stream()
-                .map(item -> {
-
-                    Booking lastBooking = bookingRepository
-                            .findFirstByItemIdAndStartBeforeOrderByStartDesc(item.getId(), LocalDateTime.now());
-                    Booking nextBooking = bookingRepository
-                            .findFirstByItemIdAndStartAfterOrderByStartAsc(item.getId(), LocalDateTime.now());
-
-                    List<Comment> comments = commentRepository.findByItemId(item.getId());
-
-                    return ItemMapper.toItemDto(
-                            item,
-                            lastBooking != null ? List.of(BookingMapper
-                                    .toBookingDto(lastBooking)) : Collections.emptyList(),  // Преобразуем в список
-                            nextBooking != null ? List.of(BookingMapper
-                                    .toBookingDto(nextBooking)) : Collections.emptyList(),
-                            comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList())
-                    );
-                })
-                .collect(Collectors.toList());
+    private static ItemSearchHit searchCursor(String after) {
+        try {
+            return ItemSearchHit.fromCursor(after);
+        } catch (IllegalArgumentException e) {
+            throw new ValidateException("Некорректный курсор страницы поиска: " + after);
+        }
     }
 
     @Override
@@ -185,10 +216,76 @@ public class ItemServiceImpl implements ItemService {
         return ItemMapper.toItemDto(item, lastBooking, nextBooking, comments);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getItemAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidateException("Начало периода должно быть раньше его окончания");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь не найдена");
+        }
 
+        List<TimeIntervalDto> busy = bookingIntervalIndex.findBusyIntervals(itemId, from, to);
 
+        // Свободные промежутки — дополнение занятых интервалов до [from, to)
+        List<TimeIntervalDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (TimeIntervalDto interval : busy) {
+            if (interval.getStart().isAfter(cursor)) {
+                free.add(new TimeIntervalDto(cursor, interval.getStart()));
+            }
+            cursor = interval.getEnd();
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new TimeIntervalDto(cursor, to));
+        }
 
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
+    }
+
+    // Обогащаем список вещей последним/следующим бронированием и комментариями
+    // за фиксированное число запросов (по одному на каждый вид данных), а не по три запроса на вещь
+    private List<ItemDto> enrichItems(List<ItemView> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> itemIds = items.stream()
+                .map(ItemView::id)
+                .collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, BookingResponseDto> lastBookings = groupByItemId(
+                bookingRepository.findLastBookingsByItemIds(itemIds, now));
+        Map<Long, BookingResponseDto> nextBookings = groupByItemId(
+                bookingRepository.findNextBookingsByItemIds(itemIds, now));
+        Map<Long, List<CommentDto>> comments = commentRepository.findByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(CommentView::itemId,
+                        Collectors.mapping(CommentMapper::toCommentDto, Collectors.toList())));
 
+        return items.stream()
+                .map(item -> ItemMapper.toItemDto(
+                        item,
+                        toSingletonList(lastBookings.get(item.id())),
+                        toSingletonList(nextBookings.get(item.id())),
+                        comments.getOrDefault(item.id(), Collections.emptyList())
+                ))
+                .collect(Collectors.toList());
+    }
+
+    // При совпадении дат начала у нескольких бронирований оставляем первое, как и findFirst...
+    private Map<Long, BookingResponseDto> groupByItemId(List<BookingView> bookings) {
+        Map<Long, BookingResponseDto> result = new HashMap<>();
+        for (BookingView booking : bookings) {
+            result.putIfAbsent(booking.itemId(), BookingMapper.toBookingDto(booking));
+        }
+        return result;
+    }
+
+    private List<BookingResponseDto> toSingletonList(BookingResponseDto booking) {
+        return booking != null ? List.of(booking) : Collections.emptyList();
+    }
 }
 
 
@@ -1,14 +1,15 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -37,10 +38,20 @@ public class ItemRequestController {
     @GetMapping("/all")
     public List<ItemRequestResponseDto> getAllRequests(
             @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreated,
+            @RequestParam(required = false) Long afterId,
             @RequestParam(defaultValue = "0") Integer from,
             @RequestParam(defaultValue = "10") Integer size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        return itemRequestService.getAllItemRequests(userId, pageable);
+        return itemRequestService.getAllItemRequests(userId, afterCreated, afterId, from, size);
+    }
+
+    @GetMapping("/suggestions")
+    public List<RequestSuggestionDto> getSuggestions(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size) {
+        return itemRequestService.getSuggestions(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.request.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция запроса для списков: поля ItemRequestResponseDto без вещей-ответов.
+ */
+public record ItemRequestView(Long id, String description, LocalDateTime created) {
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestSuggestionDto {
+    private Long id;
+    private Long requestId;
+    private String requestDescription;
+    private LocalDateTime requestCreated;
+    private Long itemId;
+    private String itemName;
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.request.mapper;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.ItemRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -35,4 +36,13 @@ public class ItemRequestMapper {
                 items
         );
     }
-}
\ No newline at end of file
+
+    public static ItemRequestResponseDto toItemRequestResponseDto(ItemRequestView request, List<ItemDto> items) {
+        return new ItemRequestResponseDto(
+                request.id(),
+                request.description(),
+                request.created(),
+                items
+        );
+    }
+}
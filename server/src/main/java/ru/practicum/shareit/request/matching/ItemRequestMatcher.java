@@ -0,0 +1,89 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Подбирает к новому запросу доступные вещи других пользователей по словам его описания
+ * и складывает найденные совпадения во входящие предложения владельцев этих вещей.
+ * Описание запроса — обычная фраза, поэтому, в отличие от поиска, достаточно совпадения
+ * хотя бы одного значимого слова; служебные и слишком короткие слова не учитываются.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemRequestMatcher {
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int MAX_SUGGESTIONS_PER_REQUEST = 50;
+    // Индекс не знает владельцев, а БД может отбросить вещь, ставшую недоступной: кандидаты читаются
+    // порциями, пока не наберётся MAX_SUGGESTIONS_PER_REQUEST предложений, но не больше MAX_CANDIDATES вещей
+    private static final int CANDIDATE_BATCH_SIZE = 100;
+    private static final int MAX_CANDIDATES = 1000;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "нужен", "нужна", "нужно", "нужны", "для", "или", "как", "что", "это", "кто", "есть",
+            "может", "можно", "пожалуйста", "ищу", "хочу", "взять", "аренду", "прокат", "напрокат",
+            "день", "дня", "дней", "неделю", "need", "for", "the", "and", "with", "want", "looking",
+            "rent", "please", "any", "some", "day", "days", "week");
+
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemRepository itemRepository;
+    private final RequestSuggestionRepository suggestionRepository;
+
+    /**
+     * Сохраняет предложения по запросу и возвращает их количество.
+     */
+    public int match(ItemRequest request) {
+        Set<String> tokens = ItemSearchIndex.tokenize(request.getDescription()).stream()
+                .filter(token -> token.length() >= MIN_TOKEN_LENGTH && !STOP_WORDS.contains(token))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Long requestorId = request.getRequestor().getId();
+        LocalDateTime now = LocalDateTime.now();
+        List<RequestSuggestion> suggestions = new ArrayList<>();
+        for (int offset = 0; offset < MAX_CANDIDATES && suggestions.size() < MAX_SUGGESTIONS_PER_REQUEST;
+             offset += CANDIDATE_BATCH_SIZE) {
+            List<Long> itemIds = itemSearchIndex.searchAny(tokens, offset, CANDIDATE_BATCH_SIZE);
+            if (itemIds.isEmpty()) {
+                break;
+            }
+
+            Map<Long, Item> items = itemRepository.findAvailableWithOwnerByIdIn(itemIds).stream()
+                    .filter(item -> !item.getOwner().getId().equals(requestorId))
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+            itemIds.stream()
+                    .map(items::get)
+                    .filter(Objects::nonNull)
+                    .limit(MAX_SUGGESTIONS_PER_REQUEST - suggestions.size())
+                    .map(item -> new RequestSuggestion(null, request, item, item.getOwner(), now))
+                    .forEach(suggestions::add);
+
+            if (itemIds.size() < CANDIDATE_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (suggestions.isEmpty()) {
+            return 0;
+        }
+        suggestionRepository.saveAll(suggestions);
+
+        log.debug("Запрос {}: отправлено предложений владельцам: {}", request.getId(), suggestions.size());
+        return suggestions.size();
+    }
+}
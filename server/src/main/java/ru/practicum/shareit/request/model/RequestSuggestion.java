@@ -0,0 +1,42 @@
+package ru.practicum.shareit.request.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Предложение владельцу: его вещь подходит под чужой запрос.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "request_suggestions")
+public class RequestSuggestion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_suggestions_seq")
+    @SequenceGenerator(name = "request_suggestions_seq", sequenceName = "request_suggestions_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "request_id", nullable = false)
+    private ItemRequest request;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    private User owner;
+
+    @Column(nullable = false)
+    private LocalDateTime created;
+}
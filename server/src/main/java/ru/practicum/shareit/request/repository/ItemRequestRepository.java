@@ -2,12 +2,29 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.ItemRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequestorIdOrderByCreatedDesc(Long requestorId);
+    // Списки запросов отдаются проекцией только нужных ответу колонок, без управляемых сущностей
+    String VIEW = "SELECT new ru.practicum.shareit.request.dto.ItemRequestView(r.id, r.description, r.created) " +
+            "FROM ItemRequest r ";
 
-    List<ItemRequest> findByRequestorIdNotOrderByCreatedDesc(Long userId, Pageable pageable);
+    @Query(VIEW + "WHERE r.requestor.id = :requestorId ORDER BY r.created DESC")
+    List<ItemRequestView> findByRequestorIdOrderByCreatedDesc(@Param("requestorId") Long requestorId);
+
+    // Лента чужих запросов в порядке (created, id) по убыванию. Курсор (afterCreated, afterId) указывает
+    // на последнюю строку предыдущей страницы, поэтому новые запросы не сдвигают уже отданные страницы.
+    // Избыточное условие created <= :afterCreated даёт планировщику диапазон по индексу, которого нет в OR
+    @Query(VIEW + "WHERE r.requestor.id <> :userId " +
+            "AND r.created <= :afterCreated " +
+            "AND (r.created < :afterCreated OR (r.created = :afterCreated AND r.id < :afterId)) " +
+            "ORDER BY r.created DESC, r.id DESC")
+    List<ItemRequestView> findFeed(@Param("userId") Long userId, @Param("afterCreated") LocalDateTime afterCreated,
+                                   @Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+
+import java.util.List;
+
+public interface RequestSuggestionRepository extends JpaRepository<RequestSuggestion, Long> {
+
+    // Входящие предложения владельца, новые первыми; сразу в DTO, без загрузки сущностей
+    @Query("SELECT new ru.practicum.shareit.request.dto.RequestSuggestionDto(" +
+            "s.id, r.id, r.description, r.created, i.id, i.name) " +
+            "FROM RequestSuggestion s JOIN s.request r JOIN s.item i " +
+            "WHERE s.owner.id = :ownerId ORDER BY s.id DESC")
+    List<RequestSuggestionDto> findInbox(@Param("ownerId") Long ownerId, Pageable pageable);
+}
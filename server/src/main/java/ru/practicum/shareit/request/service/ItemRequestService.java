@@ -1,9 +1,10 @@
 package ru.practicum.shareit.request.service;
 
-import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestService {
@@ -11,7 +12,10 @@ public interface ItemRequestService {
 
     List<ItemRequestResponseDto> getUserItemRequests(Long userId);
 
-    List<ItemRequestResponseDto> getAllItemRequests(Long userId, Pageable pageable);
+    List<ItemRequestResponseDto> getAllItemRequests(Long userId, LocalDateTime afterCreated, Long afterId,
+                                                    int from, int size);
 
     ItemRequestResponseDto getItemRequestById(Long userId, Long requestId);
+
+    List<RequestSuggestionDto> getSuggestions(Long ownerId, int from, int size);
 }
@@ -4,79 +4,93 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.OffsetPageRequest;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidateException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.ItemRequestView;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
+    // Без курсора лента начинается с даты, которая заведомо позже любого запроса
+    private static final LocalDateTime NO_CURSOR_CREATED = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final ItemRequestRepository itemRequestRepository;
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final RequestSuggestionRepository suggestionRepository;
+    private final ItemRequestMatcher itemRequestMatcher;
 
     @Override
     @Transactional
     public ItemRequestDto createItemRequest(Long userId, ItemRequestDto itemRequestDto) {
-        User requestor = userRepository.findById(userId)
+        User requestor = userCache.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
 
         ItemRequest request = ItemRequestMapper.toItemRequest(itemRequestDto, requestor);
-        return ItemRequestMapper.toItemRequestDto(itemRequestRepository.save(request));
+        ItemRequest savedRequest = itemRequestRepository.save(request);
+        itemRequestMatcher.match(savedRequest);
+        return ItemRequestMapper.toItemRequestDto(savedRequest);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemRequestResponseDto> getUserItemRequests(Long userId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-
-        List<ItemRequest> requests = itemRequestRepository.findByRequestorIdOrderByCreatedDesc(userId);
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
 
-        return requests.stream().map(request -> {
-            List<ItemDto> items = itemRepository.findByRequestId(request.getId())
-                    .stream()
-                    .map(item -> ItemMapper.toItemDto(item, null, null, null))
-                    .collect(Collectors.toList());
+        List<ItemRequestView> requests = itemRequestRepository.findByRequestorIdOrderByCreatedDesc(userId);
 
-            return ItemRequestMapper.toItemRequestResponseDto(request, items);
-        }).collect(Collectors.toList());
+        return toResponseDtos(requests);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemRequestResponseDto> getAllItemRequests(Long userId, Pageable pageable) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
-
-        List<ItemRequest> requests = itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(userId, pageable);
-
-        return requests.stream().map(request -> {
-            List<ItemDto> items = itemRepository.findByRequestId(request.getId())
-                    .stream()
-                    .map(item -> ItemMapper.toItemDto(item, null, null, null))
-                    .collect(Collectors.toList());
-
-            return ItemRequestMapper.toItemRequestResponseDto(request, items);
-        }).collect(Collectors.toList());
+    public List<ItemRequestResponseDto> getAllItemRequests(Long userId, LocalDateTime afterCreated, Long afterId,
+                                                           int from, int size) {
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+
+        if ((afterCreated == null) != (afterId == null)) {
+            throw new ValidateException("Параметры afterCreated и afterId задаются только вместе");
+        }
+        Pageable page = OffsetPageRequest.of(from, size);
+
+        List<ItemRequestView> requests = itemRequestRepository.findFeed(userId,
+                afterCreated != null ? afterCreated : NO_CURSOR_CREATED,
+                afterId != null ? afterId : Long.MAX_VALUE,
+                page);
+
+        return toResponseDtos(requests);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ItemRequestResponseDto getItemRequestById(Long userId, Long requestId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
 
         ItemRequest request = itemRequestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос не найден"));
@@ -88,4 +102,36 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
         return ItemRequestMapper.toItemRequestResponseDto(request, items);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RequestSuggestionDto> getSuggestions(Long ownerId, int from, int size) {
+        if (!userCache.existsById(ownerId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+
+        return suggestionRepository.findInbox(ownerId, OffsetPageRequest.of(from, size));
+    }
+
+    // Ответы (вещи) для всей страницы запросов загружаем одним запросом request_id IN (...)
+    // и раскладываем по запросам в памяти
+    private List<ItemRequestResponseDto> toResponseDtos(List<ItemRequestView> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequestView::id)
+                .collect(Collectors.toList());
+
+        Map<Long, List<ItemDto>> itemsByRequestId = itemRepository.findByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemView::requestId,
+                        Collectors.mapping(item -> ItemMapper.toItemDto(item, null, null, null),
+                                Collectors.toList())));
+
+        return requests.stream()
+                .map(request -> ItemRequestMapper.toItemRequestResponseDto(request,
+                        itemsByRequestId.getOrDefault(request.id(), List.of())))
+                .collect(Collectors.toList());
+    }
 }
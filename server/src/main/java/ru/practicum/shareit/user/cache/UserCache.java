@@ -0,0 +1,83 @@
+package ru.practicum.shareit.user.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Кэш пользователей перед UserRepository для проверок в начале методов сервисов.
+ * Размер ограничен, записи устаревают по времени, чтобы не расходиться с изменениями,
+ * сделанными другими экземплярами сервера. Попадания и промахи публикуются в метриках cache.gets{cache=users}.
+ * Наружу отдаются копии: закэшированный экземпляр не должен меняться вызывающим кодом.
+ * Сущность User хранится и во втором уровне кэша Hibernate (регион users), откуда её берут загрузки
+ * связей вещей и бронирований. Срок жизни записей здесь и там одинаковый, а evict удаляет обе копии.
+ */
+@Component
+public class UserCache {
+    private static final int MAX_CACHED_USERS = 10_000;
+    // Совпадает со сроком жизни региона users в hibernate-cache.conf
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final UserRepository userRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Cache<Long, User> users = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_USERS)
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .recordStats()
+            .build();
+
+    public UserCache(UserRepository userRepository, EntityManagerFactory entityManagerFactory,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    public Optional<User> findById(Long userId) {
+        User cached = users.get(userId, id -> userRepository.findById(id).map(UserCache::copy).orElse(null));
+        return Optional.ofNullable(cached).map(UserCache::copy);
+    }
+
+    /**
+     * Проверка существования без загрузки сущности: при промахе выполняется только запрос exists,
+     * кэш при этом не заполняется.
+     */
+    public boolean existsById(Long userId) {
+        return users.getIfPresent(userId) != null || userRepository.existsById(userId);
+    }
+
+    /**
+     * Удаляет пользователя из кэша и из второго уровня кэша Hibernate сразу и ещё раз после фиксации
+     * транзакции, чтобы параллельное чтение не вернуло в кэш незафиксированное старое состояние.
+     */
+    public void evict(Long userId) {
+        invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Long userId) {
+        users.invalidate(userId);
+        entityManagerFactory.getCache().evict(User.class, userId);
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+}
@@ -1,15 +1,11 @@
--- Удаляем таблицы, если они существуют (обратный порядок, чтобы не было ошибок)
-DROP TABLE IF EXISTS bookings, comments, items, requests, users;
-
--- Сначала создаем таблицу пользователей
-CREATE TABLE users (
+-- Исходная схема. IF NOT EXISTS позволяет применить миграцию к базе, созданной прежним schema.sql
+CREATE TABLE IF NOT EXISTS users (
     id SERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(255) UNIQUE NOT NULL
 );
 
--- Создаем таблицу запросов, ссылающуюся на users
-CREATE TABLE requests (
+CREATE TABLE IF NOT EXISTS requests (
     id SERIAL PRIMARY KEY,
     description TEXT NOT NULL,
     requestor_id INT NOT NULL,
@@ -17,8 +13,7 @@ CREATE TABLE requests (
     FOREIGN KEY (requestor_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
--- Создаем таблицу предметов, ссылающуюся на users и requests
-CREATE TABLE items (
+CREATE TABLE IF NOT EXISTS items (
     id SERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description TEXT,
@@ -29,8 +24,7 @@ CREATE TABLE items (
     FOREIGN KEY (request_id) REFERENCES requests(id) ON DELETE SET NULL
 );
 
--- Создаем таблицу бронирований, ссылающуюся на items и users
-CREATE TABLE bookings (
+CREATE TABLE IF NOT EXISTS bookings (
     id SERIAL PRIMARY KEY,
     start_time TIMESTAMP NOT NULL,
     end_time TIMESTAMP NOT NULL,
@@ -41,8 +35,7 @@ CREATE TABLE bookings (
     FOREIGN KEY (booker_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
--- Создаем таблицу комментариев, ссылающуюся на items и users
-CREATE TABLE comments (
+CREATE TABLE IF NOT EXISTS comments (
     id SERIAL PRIMARY KEY,
     text TEXT NOT NULL,
     item_id INT NOT NULL,
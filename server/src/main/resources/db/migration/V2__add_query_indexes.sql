@@ -0,0 +1,22 @@
+-- Индексы под запросы репозиториев. Составные ключи повторяют порядок условий и сортировки,
+-- чтобы выборка и ORDER BY обслуживались одним проходом по индексу
+
+-- Пересечение интервалов и последнее/следующее бронирование вещи
+CREATE INDEX IF NOT EXISTS bookings_item_start_end_idx ON bookings (item_id, start_time, end_time);
+
+-- Бронирования вещей владельца и вещи с бронированиями в статусе
+CREATE INDEX IF NOT EXISTS bookings_item_status_start_idx ON bookings (item_id, status, start_time);
+
+-- Списки бронирований пользователя в порядке (start_time, id) и по статусу
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_time, id);
+CREATE INDEX IF NOT EXISTS bookings_booker_status_start_idx ON bookings (booker_id, status, start_time);
+
+-- Вещи владельца (keyset по id) и вещи, созданные в ответ на запрос
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
+-- Комментарии к вещам
+CREATE INDEX IF NOT EXISTS comments_item_idx ON comments (item_id);
+
+-- Запросы пользователя, новые первыми
+CREATE INDEX IF NOT EXISTS requests_requestor_created_idx ON requests (requestor_id, created);
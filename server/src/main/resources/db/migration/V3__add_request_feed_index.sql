@@ -0,0 +1,2 @@
+-- Лента запросов других пользователей: keyset по (created, id)
+CREATE INDEX IF NOT EXISTS requests_created_id_idx ON requests (created, id);
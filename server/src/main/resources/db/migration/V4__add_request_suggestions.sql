@@ -0,0 +1,14 @@
+-- Предложения владельцам: вещи, подходящие под новые запросы
+CREATE TABLE IF NOT EXISTS request_suggestions (
+    id SERIAL PRIMARY KEY,
+    request_id INT NOT NULL,
+    item_id INT NOT NULL,
+    owner_id INT NOT NULL,
+    created TIMESTAMP NOT NULL,
+    FOREIGN KEY (request_id) REFERENCES requests(id) ON DELETE CASCADE,
+    FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE,
+    FOREIGN KEY (owner_id) REFERENCES users(id) ON DELETE CASCADE,
+    UNIQUE (request_id, item_id)
+);
+
+CREATE INDEX IF NOT EXISTS request_suggestions_owner_idx ON request_suggestions (owner_id, id);
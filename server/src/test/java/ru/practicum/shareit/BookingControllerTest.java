@@ -14,6 +14,8 @@ import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
 import ru.practicum.shareit.exceptions.NotFoundException;
@@ -74,6 +76,21 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is("APPROVED")));
     }
 
+    @Test
+    void updateBookingStatuses_ShouldReturnResultPerId() throws Exception {
+        when(bookingService.updateBookingStatuses(anyLong(), any(BookingStatusUpdateDto.class))).thenReturn(List.of(
+                new BookingStatusResultDto(1L, true, BookingStatus.REJECTED, null),
+                new BookingStatusResultDto(2L, false, null, "Бронирование не найдено")));
+
+        mockMvc.perform(patch("/bookings/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "1")
+                        .content(objectMapper.writeValueAsString(new BookingStatusUpdateDto(List.of(1L, 2L), false))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("REJECTED")))
+                .andExpect(jsonPath("$[1].updated", is(false)));
+    }
+
     @Test
     void getBooking_ShouldReturn200() throws Exception {
         BookingResponseDto responseDto = new BookingResponseDto(1L, LocalDateTime.now().plusDays(1),
@@ -114,7 +131,8 @@ class BookingControllerTest {
                         LocalDateTime.now().plusDays(2), null, null, BookingStatus.APPROVED)
         );
 
-        when(bookingService.getUserBookings(anyLong(), anyString())).thenReturn(bookings);
+        when(bookingService.getUserBookings(anyLong(), anyString(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(bookings);
 
         mockMvc.perform(get("/bookings?state=ALL")
                         .header("X-Sharer-User-Id", "1"))
@@ -129,7 +147,8 @@ class BookingControllerTest {
                         LocalDateTime.now().plusDays(2), null, null, BookingStatus.WAITING)
         );
 
-        when(bookingService.getOwnerBookings(anyLong(), anyString())).thenReturn(bookings);
+        when(bookingService.getOwnerBookings(anyLong(), anyString(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(bookings);
 
         mockMvc.perform(get("/bookings/owner?state=ALL")
                         .header("X-Sharer-User-Id", "1"))
@@ -150,7 +169,8 @@ class BookingControllerTest {
 
     @Test
     void getUserBookings_ShouldReturnEmptyList_WhenNoBookings() throws Exception {
-        when(bookingService.getUserBookings(anyLong(), anyString())).thenReturn(Collections.emptyList());
+        when(bookingService.getUserBookings(anyLong(), anyString(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/bookings?state=ALL")
                         .header("X-Sharer-User-Id", "1"))
@@ -165,7 +185,8 @@ class BookingControllerTest {
                         LocalDateTime.now().plusDays(2), null, null, BookingStatus.REJECTED)
         );
 
-        when(bookingService.getOwnerBookings(anyLong(), eq("REJECTED"))).thenReturn(bookings);
+        when(bookingService.getOwnerBookings(anyLong(), eq("REJECTED"), any(), any(), anyInt(), anyInt()))
+                .thenReturn(bookings);
 
         mockMvc.perform(get("/bookings/owner?state=REJECTED")
                         .header("X-Sharer-User-Id", "1"))
@@ -187,6 +208,20 @@ class BookingControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    void getUserBookings_ShouldPassPagingAndCursor() throws Exception {
+        when(bookingService.getUserBookings(1L, "ALL", LocalDateTime.of(2030, 1, 1, 10, 0), 5L, 0, 20))
+                .thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("afterStart", "2030-01-01T10:00:00")
+                        .param("afterId", "5")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(0)));
+    }
+
     @Test
     void getUserBookings_ShouldReturnAll_WhenStateNotProvided() throws Exception {
         List<BookingResponseDto> bookings = List.of(
@@ -194,7 +229,8 @@ class BookingControllerTest {
                         LocalDateTime.now().plusDays(2), null, null, BookingStatus.WAITING)
         );
 
-        when(bookingService.getUserBookings(anyLong(), eq("ALL"))).thenReturn(bookings);
+        when(bookingService.getUserBookings(anyLong(), eq("ALL"), any(), any(), anyInt(), anyInt()))
+                .thenReturn(bookings);
 
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", "1"))
@@ -0,0 +1,109 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingIntervalIndex index;
+
+    private LocalDateTime base;
+    private Item item;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        User owner = new User(1L, "John Doe", "john@example.com");
+        booker = new User(2L, "Alice Smith", "alice@example.com");
+        item = new Item(1L, "Laptop", "Powerful laptop", true, owner, null);
+    }
+
+    @Test
+    void findBusyIntervals_ShouldMergeOverlappingAndClipToPeriod() {
+        when(bookingRepository.findByItemIdAndStatusIn(item.getId(), BookingIntervalIndex.BUSY_STATUSES))
+                .thenReturn(List.of(
+                        booking(1L, 0, 30, BookingStatus.APPROVED),
+                        booking(2L, 40, 45, BookingStatus.WAITING),
+                        booking(3L, 44, 50, BookingStatus.APPROVED),
+                        booking(4L, 50, 52, BookingStatus.APPROVED),
+                        booking(5L, 70, 80, BookingStatus.APPROVED)));
+
+        List<TimeIntervalDto> busy = index.findBusyIntervals(item.getId(), base.plusDays(20), base.plusDays(75));
+
+        assertThat(busy, contains(
+                new TimeIntervalDto(base.plusDays(20), base.plusDays(30)),
+                new TimeIntervalDto(base.plusDays(40), base.plusDays(52)),
+                new TimeIntervalDto(base.plusDays(70), base.plusDays(75))));
+    }
+
+    @Test
+    void findBusyIntervals_ShouldLoadItemOnlyOnce() {
+        when(bookingRepository.findByItemIdAndStatusIn(item.getId(), BookingIntervalIndex.BUSY_STATUSES))
+                .thenReturn(List.of(booking(1L, 1, 2, BookingStatus.APPROVED)));
+
+        index.findBusyIntervals(item.getId(), base, base.plusDays(10));
+        index.findBusyIntervals(item.getId(), base, base.plusDays(10));
+
+        verify(bookingRepository, times(1)).findByItemIdAndStatusIn(item.getId(), BookingIntervalIndex.BUSY_STATUSES);
+    }
+
+    @Test
+    void onBookingChanged_ShouldAddAndRemoveIntervalsIncrementally() {
+        when(bookingRepository.findByItemIdAndStatusIn(item.getId(), BookingIntervalIndex.BUSY_STATUSES))
+                .thenReturn(List.of());
+        assertThat(index.findBusyIntervals(item.getId(), base, base.plusDays(10)), empty());
+
+        index.onBookingChanged(booking(1L, 2, 4, BookingStatus.WAITING));
+        assertThat(index.findBusyIntervals(item.getId(), base, base.plusDays(10)),
+                contains(new TimeIntervalDto(base.plusDays(2), base.plusDays(4))));
+
+        index.onBookingChanged(booking(1L, 2, 4, BookingStatus.REJECTED));
+        assertThat(index.findBusyIntervals(item.getId(), base, base.plusDays(10)), empty());
+    }
+
+    @Test
+    void findBusyIntervals_ShouldKeepChangesCommittedWhileLoading() {
+        when(bookingRepository.findByItemIdAndStatusIn(item.getId(), BookingIntervalIndex.BUSY_STATUSES))
+                .thenAnswer(invocation -> {
+                    // Пока читаем из БД, другая транзакция отклоняет первое бронирование и создаёт третье
+                    index.onBookingChanged(booking(1L, 1, 2, BookingStatus.REJECTED));
+                    index.onBookingChanged(booking(3L, 5, 6, BookingStatus.WAITING));
+                    return List.of(booking(1L, 1, 2, BookingStatus.APPROVED),
+                            booking(2L, 3, 4, BookingStatus.APPROVED));
+                });
+
+        List<TimeIntervalDto> busy = index.findBusyIntervals(item.getId(), base, base.plusDays(10));
+
+        assertThat(busy, contains(
+                new TimeIntervalDto(base.plusDays(3), base.plusDays(4)),
+                new TimeIntervalDto(base.plusDays(5), base.plusDays(6))));
+    }
+
+    private Booking booking(Long id, int startDay, int endDay, BookingStatus status) {
+        return new Booking(id, base.plusDays(startDay), base.plusDays(endDay), item, booker, status);
+    }
+}
@@ -8,22 +8,29 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.BookingIntervalIndex;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingOwnerView;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidateException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -37,11 +44,14 @@ class BookingServiceImplTest {
     private BookingRepository bookingRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -63,8 +73,8 @@ class BookingServiceImplTest {
 
     @Test
     void createBooking_ShouldReturnBookingResponseDto() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(userCache.findById(user.getId())).thenReturn(Optional.of(user));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
         when(bookingRepository.save(Mockito.any())).thenReturn(booking);
 
         BookingResponseDto result = bookingService.createBooking(user.getId(), bookingDto);
@@ -72,13 +82,33 @@ class BookingServiceImplTest {
         assertThat(result, notNullValue());
         assertThat(result.getItem().getId(), is(item.getId()));
         assertThat(result.getStatus(), is(BookingStatus.WAITING));
+        verify(bookingIntervalIndex).onBookingChanged(booking);
+    }
+
+    @Test
+    void createBooking_WhenIntervalOverlapsActiveBooking_ShouldThrowConflict() {
+        when(userCache.findById(user.getId())).thenReturn(Optional.of(user));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlapping(eq(item.getId()), eq(bookingDto.getStart()), eq(bookingDto.getEnd()),
+                argThat(statuses -> statuses.contains(BookingStatus.WAITING)
+                        && statuses.contains(BookingStatus.APPROVED)
+                        && !statuses.contains(BookingStatus.REJECTED))))
+                .thenReturn(true);
+
+        ConflictException exception = assertThrows(
+                ConflictException.class,
+                () -> bookingService.createBooking(user.getId(), bookingDto)
+        );
+
+        assertThat(exception.getMessage(), containsString("Вещь уже забронирована на это время"));
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
     void createBooking_WhenItemNotAvailable_ShouldThrowException() {
         item.setAvailable(false);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(userCache.findById(user.getId())).thenReturn(Optional.of(user));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
 
         ValidateException exception = assertThrows(
                 ValidateException.class,
@@ -92,8 +122,8 @@ class BookingServiceImplTest {
     void createBooking_WhenEndBeforeStart_ShouldThrowException() {
         bookingDto = new BookingDto(item.getId(), LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(1));
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(userCache.findById(user.getId())).thenReturn(Optional.of(user));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
 
         ValidateException exception = assertThrows(
                 ValidateException.class,
@@ -106,11 +136,13 @@ class BookingServiceImplTest {
     @Test
     void updateBookingStatus_ShouldApproveBooking() {
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
         when(bookingRepository.save(Mockito.any())).thenReturn(booking);
 
         BookingResponseDto result = bookingService.updateBookingStatus(owner.getId(), booking.getId(), true);
 
         assertThat(result.getStatus(), is(BookingStatus.APPROVED));
+        verify(bookingIntervalIndex).onBookingChanged(booking);
     }
 
     @Test
@@ -123,6 +155,33 @@ class BookingServiceImplTest {
         assertThat(result.getStatus(), is(BookingStatus.REJECTED));
     }
 
+    @Test
+    void updateBookingStatus_WhenApprovedOverlapsApprovedBooking_ShouldThrowConflict() {
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(itemRepository.findByIdForUpdate(item.getId())).thenReturn(Optional.of(item));
+        when(bookingRepository.existsOverlappingExcept(eq(item.getId()), eq(booking.getStart()), eq(booking.getEnd()),
+                argThat(statuses -> statuses.equals(Set.of(BookingStatus.APPROVED))), eq(booking.getId())))
+                .thenReturn(true);
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.updateBookingStatus(owner.getId(), booking.getId(), true));
+
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void updateBookingStatus_WhenBookingNotWaiting_ShouldThrowException() {
+        booking.setStatus(BookingStatus.REJECTED);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+
+        ValidateException exception = assertThrows(ValidateException.class,
+                () -> bookingService.updateBookingStatus(owner.getId(), booking.getId(), true));
+
+        assertThat(exception.getMessage(), containsString("Бронирование не ожидает подтверждения"));
+        verify(itemRepository, never()).findByIdForUpdate(anyLong());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void updateBookingStatus_ShouldThrowException_WhenNotOwner() {
         when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
@@ -135,6 +194,61 @@ class BookingServiceImplTest {
         assertThat(exception.getMessage(), containsString("Подтвердить бронирование может только владелец"));
     }
 
+    @Test
+    void updateBookingStatuses_ShouldUpdateOwnedBookingsWithSingleStatement() {
+        BookingOwnerView owned = new BookingOwnerView(booking.getId(), item.getId(), owner.getId(),
+                booking.getStart(), booking.getEnd(), BookingStatus.WAITING);
+        BookingOwnerView foreign = new BookingOwnerView(5L, 7L, 3L, booking.getStart(), booking.getEnd(),
+                BookingStatus.WAITING);
+        when(bookingRepository.findOwnerViewsByIdIn(Mockito.any())).thenReturn(List.of(owned, foreign));
+        when(bookingRepository.updateStatusByIdIn(List.of(booking.getId()), BookingStatus.REJECTED)).thenReturn(1);
+
+        List<BookingStatusResultDto> results = bookingService.updateBookingStatuses(owner.getId(),
+                new BookingStatusUpdateDto(List.of(5L, booking.getId(), booking.getId()), false));
+
+        assertThat(results, hasSize(2));
+        assertThat(results.get(0).isUpdated(), is(false));
+        assertThat(results.get(1).getStatus(), is(BookingStatus.REJECTED));
+        verify(bookingRepository).updateStatusByIdIn(List.of(booking.getId()), BookingStatus.REJECTED);
+        verify(bookingIntervalIndex).onStatusChanged(owned, BookingStatus.REJECTED);
+        verify(bookingRepository, never()).findById(Mockito.anyLong());
+        verify(itemRepository, never()).findByIdForUpdate(anyLong());
+    }
+
+    @Test
+    void updateBookingStatuses_WhenApproving_ShouldLockItemsInIdOrderAndSkipConflicts() {
+        Item other = new Item(3L, "Drill", "Cordless drill", true, owner, null);
+        BookingOwnerView first = new BookingOwnerView(10L, other.getId(), owner.getId(),
+                booking.getStart(), booking.getEnd(), BookingStatus.WAITING);
+        BookingOwnerView overlapping = new BookingOwnerView(11L, other.getId(), owner.getId(),
+                booking.getStart().plusHours(1), booking.getEnd().plusHours(1), BookingStatus.WAITING);
+        BookingOwnerView clashing = new BookingOwnerView(12L, item.getId(), owner.getId(),
+                booking.getStart(), booking.getEnd(), BookingStatus.WAITING);
+        BookingOwnerView rejected = new BookingOwnerView(13L, item.getId(), owner.getId(),
+                booking.getStart(), booking.getEnd(), BookingStatus.REJECTED);
+        when(bookingRepository.findOwnerViewsByIdIn(Mockito.any()))
+                .thenReturn(List.of(first, overlapping, clashing, rejected));
+        when(bookingRepository.existsOverlapping(other.getId(), first.start(), first.end(),
+                Set.of(BookingStatus.APPROVED))).thenReturn(false);
+        when(bookingRepository.existsOverlapping(item.getId(), clashing.start(), clashing.end(),
+                Set.of(BookingStatus.APPROVED))).thenReturn(true);
+        when(bookingRepository.updateStatusByIdIn(List.of(10L), BookingStatus.APPROVED)).thenReturn(1);
+
+        List<BookingStatusResultDto> results = bookingService.updateBookingStatuses(owner.getId(),
+                new BookingStatusUpdateDto(List.of(13L, 12L, 10L, 11L), true));
+
+        assertThat(results.stream().map(BookingStatusResultDto::isUpdated).toList(),
+                contains(false, false, true, false));
+        assertThat(results.get(0).getMessage(), is("Бронирование не ожидает подтверждения"));
+        assertThat(results.get(1).getMessage(), is("Вещь уже забронирована на это время"));
+        assertThat(results.get(3).getMessage(), is("Вещь уже забронирована на это время"));
+        var inOrder = inOrder(itemRepository);
+        inOrder.verify(itemRepository).findByIdForUpdate(item.getId());
+        inOrder.verify(itemRepository).findByIdForUpdate(other.getId());
+        verify(bookingIntervalIndex).onStatusChanged(first, BookingStatus.APPROVED);
+        verify(bookingIntervalIndex, never()).onStatusChanged(overlapping, BookingStatus.APPROVED);
+    }
+
     @Test
     void getBooking_ShouldThrowException_WhenBookingNotFound() {
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -149,22 +263,31 @@ class BookingServiceImplTest {
 
     @Test
     void getUserBookings_ShouldReturnEmptyList_WhenNoBookings() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(bookingRepository.findByBookerIdOrderByStartDesc(user.getId())).thenReturn(List.of());
+        when(userCache.existsById(user.getId())).thenReturn(true);
+        when(bookingRepository.findBookerBookings(Mockito.eq(user.getId()), Mockito.any(), Mockito.eq(Long.MAX_VALUE),
+                Mockito.any())).thenReturn(List.of());
 
-        List<BookingResponseDto> result = bookingService.getUserBookings(user.getId(), "ALL");
+        List<BookingResponseDto> result = bookingService.getUserBookings(user.getId(), "ALL", null, null, 0, 10);
 
         assertThat(result, is(empty()));
     }
 
+    @Test
+    void getUserBookings_WhenCursorIsIncomplete_ShouldThrowException() {
+        when(userCache.existsById(user.getId())).thenReturn(true);
+
+        assertThrows(ValidateException.class,
+                () -> bookingService.getUserBookings(user.getId(), "ALL", LocalDateTime.now(), null, 0, 10));
+    }
+
     @Test
     void getOwnerBookings_ShouldThrowException_WhenUserHasNoItems() {
-        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
-        when(itemRepository.findByOwnerId(owner.getId())).thenReturn(List.of());
+        when(userCache.existsById(owner.getId())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(owner.getId())).thenReturn(false);
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
-                () -> bookingService.getOwnerBookings(owner.getId(), "ALL")
+                () -> bookingService.getOwnerBookings(owner.getId(), "ALL", null, null, 0, 10)
         );
 
         assertThat(exception.getMessage(), containsString("У пользователя нет вещей, доступ запрещен"));
@@ -172,14 +295,34 @@ class BookingServiceImplTest {
 
     @Test
     void getOwnerBookings_ShouldReturnListOfBookings() {
-        when(userRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
-        when(itemRepository.findByOwnerId(owner.getId())).thenReturn(List.of(item));
-        when(bookingRepository.findByItemOwnerAndState(List.of(item), "ALL")).thenReturn(List.of(booking));
+        when(userCache.existsById(owner.getId())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(owner.getId())).thenReturn(true);
+        when(bookingRepository.findOwnerBookings(Mockito.eq(owner.getId()), Mockito.any(), Mockito.eq(Long.MAX_VALUE),
+                Mockito.any())).thenReturn(List.of(bookingView()));
 
-        List<BookingResponseDto> result = bookingService.getOwnerBookings(owner.getId(), "ALL");
+        List<BookingResponseDto> result = bookingService.getOwnerBookings(owner.getId(), "ALL", null, null, 0, 10);
 
         assertThat(result, hasSize(1));
         assertThat(result.get(0).getStatus(), is(BookingStatus.WAITING));
     }
 
+    @Test
+    void getOwnerBookings_ShouldQueryByOwnerForTimeStates() {
+        when(userCache.existsById(owner.getId())).thenReturn(true);
+        when(itemRepository.existsByOwnerId(owner.getId())).thenReturn(true);
+        when(bookingRepository.findOwnerFutureBookings(Mockito.eq(owner.getId()), Mockito.any(LocalDateTime.class),
+                Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of(bookingView()));
+
+        List<BookingResponseDto> result = bookingService.getOwnerBookings(owner.getId(), "FUTURE", null, null, 0, 10);
+
+        assertThat(result, hasSize(1));
+        verify(bookingRepository, never()).findOwnerBookings(anyLong(), Mockito.any(), anyLong(), Mockito.any());
+    }
+
+    private BookingView bookingView() {
+        return new BookingView(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus(),
+                item.getId(), item.getName(), item.getDescription(), item.getAvailable(), null,
+                user.getId(), user.getName(), user.getEmail());
+    }
 }
@@ -1,5 +1,8 @@
 package ru.practicum.shareit;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,9 +11,13 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.ValidateException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -18,6 +25,7 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -40,6 +48,9 @@ class BookingServiceIntegrationTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private User user;
     private User owner;
     private Item item;
@@ -75,6 +86,33 @@ class BookingServiceIntegrationTest {
                 "быть раньше даты окончания"));
     }
 
+    @Test
+    void createBooking_ShouldRejectOverlappingInterval() {
+        bookingService.createBooking(user.getId(), bookingDto);
+        BookingDto overlapping = new BookingDto(item.getId(), bookingDto.getStart().plusHours(12),
+                bookingDto.getEnd().plusHours(12));
+
+        Exception exception = assertThrows(ConflictException.class, () ->
+                bookingService.createBooking(owner.getId(), overlapping));
+
+        assertThat(exception.getMessage(), containsString("Вещь уже забронирована на это время"));
+    }
+
+    @Test
+    void createBooking_ShouldAllowAdjacentIntervalAndRejectedOverlap() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        bookingDto = new BookingDto(item.getId(), start, start.plusDays(1));
+        BookingResponseDto rejected = bookingService.createBooking(user.getId(), bookingDto);
+        bookingService.updateBookingStatus(owner.getId(), rejected.getId(), false);
+
+        BookingResponseDto sameInterval = bookingService.createBooking(user.getId(), bookingDto);
+        BookingResponseDto adjacent = bookingService.createBooking(user.getId(),
+                new BookingDto(item.getId(), bookingDto.getEnd(), bookingDto.getEnd().plusDays(1)));
+
+        assertThat(sameInterval.getId(), notNullValue());
+        assertThat(adjacent.getId(), notNullValue());
+    }
+
     @Test
     void updateBookingStatus_ShouldApproveBooking() {
         BookingResponseDto savedBooking = bookingService.createBooking(user.getId(), bookingDto);
@@ -91,6 +129,35 @@ class BookingServiceIntegrationTest {
         assertThat(updatedBooking.getStatus(), equalTo(BookingStatus.REJECTED));
     }
 
+    @Test
+    void updateBookingStatus_ShouldNotApproveRejectedBooking() {
+        BookingResponseDto savedBooking = bookingService.createBooking(user.getId(), bookingDto);
+        bookingService.updateBookingStatus(owner.getId(), savedBooking.getId(), false);
+
+        Exception exception = assertThrows(ValidateException.class, () ->
+                bookingService.updateBookingStatus(owner.getId(), savedBooking.getId(), true));
+
+        assertThat(exception.getMessage(), containsString("Бронирование не ожидает подтверждения"));
+        assertThat(bookingRepository.findById(savedBooking.getId()).orElseThrow().getStatus(),
+                is(BookingStatus.REJECTED));
+    }
+
+    @Test
+    void updateBookingStatus_ShouldNotApproveBookingOverlappingApprovedOne() {
+        BookingResponseDto approved = bookingService.createBooking(user.getId(), bookingDto);
+        bookingService.updateBookingStatus(owner.getId(), approved.getId(), true);
+        // Пересекающееся ожидающее бронирование могло появиться до проверки пересечений при создании
+        Booking overlapping = bookingRepository.save(new Booking(null, bookingDto.getStart().plusHours(12),
+                bookingDto.getEnd().plusHours(12), item, user, BookingStatus.WAITING));
+
+        Exception exception = assertThrows(ConflictException.class, () ->
+                bookingService.updateBookingStatus(owner.getId(), overlapping.getId(), true));
+
+        assertThat(exception.getMessage(), containsString("Вещь уже забронирована на это время"));
+        assertThat(bookingService.updateBookingStatus(owner.getId(), overlapping.getId(), false).getStatus(),
+                is(BookingStatus.REJECTED));
+    }
+
     @Test
     void updateBookingStatus_ShouldThrowException_WhenNotOwner() {
         BookingResponseDto savedBooking = bookingService.createBooking(user.getId(), bookingDto);
@@ -101,6 +168,66 @@ class BookingServiceIntegrationTest {
         assertThat(exception.getMessage(), containsString("Подтвердить бронирование может только владелец"));
     }
 
+    @Test
+    void updateBookingStatuses_ShouldUpdateOnlyOwnedBookingsInRequestOrder() {
+        User otherOwner = userRepository.save(new User(null, "Bob Brown", "bob@example.com"));
+        Item otherItem = itemRepository.save(new Item(null, "Drill", "Cordless drill", true, otherOwner, null));
+        BookingResponseDto first = bookingService.createBooking(user.getId(), bookingDto);
+        BookingResponseDto second = bookingService.createBooking(user.getId(),
+                new BookingDto(item.getId(), bookingDto.getEnd().plusDays(1), bookingDto.getEnd().plusDays(2)));
+        BookingResponseDto foreign = bookingService.createBooking(user.getId(),
+                new BookingDto(otherItem.getId(), bookingDto.getStart(), bookingDto.getEnd()));
+
+        List<BookingStatusResultDto> results = bookingService.updateBookingStatuses(owner.getId(),
+                new BookingStatusUpdateDto(List.of(second.getId(), foreign.getId(), 999999L, first.getId()), true));
+
+        assertThat(results.stream().map(BookingStatusResultDto::getBookingId).toList(),
+                contains(second.getId(), foreign.getId(), 999999L, first.getId()));
+        assertThat(results.stream().map(BookingStatusResultDto::isUpdated).toList(),
+                contains(true, false, false, true));
+        assertThat(results.get(1).getMessage(), is("Подтвердить бронирование может только владелец"));
+        assertThat(results.get(2).getMessage(), is("Бронирование не найдено"));
+        assertThat(bookingRepository.findById(first.getId()).orElseThrow().getStatus(), is(BookingStatus.APPROVED));
+        assertThat(bookingRepository.findById(second.getId()).orElseThrow().getStatus(), is(BookingStatus.APPROVED));
+        assertThat(bookingRepository.findById(foreign.getId()).orElseThrow().getStatus(), is(BookingStatus.WAITING));
+    }
+
+    @Test
+    void updateBookingStatuses_ShouldNotApproveRejectedBooking() {
+        BookingResponseDto rejected = bookingService.createBooking(user.getId(), bookingDto);
+        bookingService.updateBookingStatus(owner.getId(), rejected.getId(), false);
+
+        List<BookingStatusResultDto> results = bookingService.updateBookingStatuses(owner.getId(),
+                new BookingStatusUpdateDto(List.of(rejected.getId()), true));
+
+        assertThat(results.get(0).isUpdated(), is(false));
+        assertThat(results.get(0).getMessage(), is("Бронирование не ожидает подтверждения"));
+        assertThat(bookingRepository.findById(rejected.getId()).orElseThrow().getStatus(), is(BookingStatus.REJECTED));
+    }
+
+    @Test
+    void updateBookingStatuses_ShouldApproveOnlyOneOfOverlappingBookings() {
+        // Пересекающиеся ожидающие бронирования могли появиться до проверки пересечений при создании
+        Booking first = bookingRepository.save(new Booking(null, bookingDto.getStart(), bookingDto.getEnd(), item,
+                user, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, bookingDto.getStart().plusHours(12),
+                bookingDto.getEnd().plusHours(12), item, user, BookingStatus.WAITING));
+
+        List<BookingStatusResultDto> results = bookingService.updateBookingStatuses(owner.getId(),
+                new BookingStatusUpdateDto(List.of(first.getId(), second.getId()), true));
+
+        assertThat(results.stream().map(BookingStatusResultDto::isUpdated).toList(), contains(true, false));
+        assertThat(results.get(1).getMessage(), is("Вещь уже забронирована на это время"));
+        assertThat(bookingRepository.findById(first.getId()).orElseThrow().getStatus(), is(BookingStatus.APPROVED));
+        assertThat(bookingRepository.findById(second.getId()).orElseThrow().getStatus(), is(BookingStatus.WAITING));
+    }
+
+    @Test
+    void updateBookingStatuses_ShouldThrowException_WhenListIsEmpty() {
+        assertThrows(ValidateException.class, () ->
+                bookingService.updateBookingStatuses(owner.getId(), new BookingStatusUpdateDto(List.of(), true)));
+    }
+
     @Test
     void getBooking_ShouldReturnBooking_WhenBookerOrOwner() {
         BookingResponseDto savedBooking = bookingService.createBooking(user.getId(), bookingDto);
@@ -127,7 +254,7 @@ class BookingServiceIntegrationTest {
     void getUserBookings_ShouldReturnAllBookings() {
         BookingResponseDto savedBooking = bookingService.createBooking(user.getId(), bookingDto);
 
-        List<BookingResponseDto> bookings = bookingService.getUserBookings(user.getId(), "ALL");
+        List<BookingResponseDto> bookings = bookingService.getUserBookings(user.getId(), "ALL", null, null, 0, 10);
 
         assertThat(bookings, not(empty()));
         assertThat(bookings.size(), is(1));
@@ -138,11 +265,75 @@ class BookingServiceIntegrationTest {
     void getUserBookings_ShouldReturnFutureBookings() {
         BookingResponseDto savedBooking = bookingService.createBooking(user.getId(), bookingDto);
 
-        List<BookingResponseDto> bookings = bookingService.getUserBookings(user.getId(), "FUTURE");
+        List<BookingResponseDto> bookings = bookingService.getUserBookings(user.getId(), "FUTURE", null, null, 0, 10);
 
         assertThat(bookings, not(empty()));
         assertThat(bookings.size(), is(1));
         assertThat(bookings.get(0).getId(), is(savedBooking.getId()));
     }
 
+    @Test
+    void getOwnerBookings_ShouldFilterByStateAcrossOwnerItems() {
+        Item secondItem = itemRepository.save(new Item(null, "Drill", "Cordless drill", true, owner, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking past = bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(2), item, user,
+                BookingStatus.APPROVED));
+        Booking current = bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1), secondItem,
+                user, BookingStatus.APPROVED));
+        Booking future = bookingRepository.save(new Booking(null, now.plusDays(2), now.plusDays(3), item, user,
+                BookingStatus.WAITING));
+
+        assertThat(ids(bookingService.getOwnerBookings(owner.getId(), "ALL", null, null, 0, 10)),
+                contains(future.getId(), current.getId(), past.getId()));
+        assertThat(ids(bookingService.getOwnerBookings(owner.getId(), "PAST", null, null, 0, 10)),
+                contains(past.getId()));
+        assertThat(ids(bookingService.getOwnerBookings(owner.getId(), "CURRENT", null, null, 0, 10)),
+                contains(current.getId()));
+        assertThat(ids(bookingService.getOwnerBookings(owner.getId(), "FUTURE", null, null, 0, 10)),
+                contains(future.getId()));
+        assertThat(ids(bookingService.getOwnerBookings(owner.getId(), "WAITING", null, null, 0, 10)),
+                contains(future.getId()));
+        assertThat(bookingService.getOwnerBookings(owner.getId(), "REJECTED", null, null, 0, 10), empty());
+    }
+
+    @Test
+    void getUserBookings_ShouldPageByOffsetAndByCursor() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        Booking first = bookingRepository.save(new Booking(null, start, start.plusHours(1), item, user,
+                BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, start, start.plusHours(1), item, user,
+                BookingStatus.WAITING));
+        Booking third = bookingRepository.save(new Booking(null, start.minusHours(12), start.minusHours(11), item,
+                user, BookingStatus.WAITING));
+
+        assertThat(ids(bookingService.getUserBookings(user.getId(), "ALL", null, null, 0, 2)),
+                contains(second.getId(), first.getId()));
+        assertThat(ids(bookingService.getUserBookings(user.getId(), "ALL", null, null, 2, 2)),
+                contains(third.getId()));
+        assertThat(ids(bookingService.getUserBookings(user.getId(), "WAITING", second.getStart(), second.getId(),
+                0, 10)), contains(first.getId(), third.getId()));
+        assertThat(ids(bookingService.getOwnerBookings(owner.getId(), "FUTURE", first.getStart(), first.getId(),
+                0, 10)), contains(third.getId()));
+    }
+
+    @Test
+    void getOwnerBookingsAndGetBooking_ShouldLoadItemAndBookerWithoutSecondarySelects() {
+        Booking booking = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, user, BookingStatus.WAITING));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BookingResponseDto> bookings = bookingService.getOwnerBookings(owner.getId(), "ALL", null, null, 0, 10);
+        BookingResponseDto found = bookingService.getBooking(user.getId(), booking.getId());
+
+        assertThat(bookings.get(0).getItem().getName(), is("Laptop"));
+        assertThat(found.getBooker().getName(), is("John Doe"));
+        assertThat(statistics.getEntityFetchCount(), is(0L));
+    }
+
+    private List<Long> ids(List<BookingResponseDto> bookings) {
+        return bookings.stream().map(BookingResponseDto::getId).toList();
+    }
 }
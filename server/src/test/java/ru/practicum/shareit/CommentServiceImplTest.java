@@ -18,8 +18,8 @@ import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidateException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -39,7 +39,7 @@ class CommentServiceImplTest {
     private CommentRepository commentRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Mock
     private ItemRepository itemRepository;
@@ -68,7 +68,7 @@ class CommentServiceImplTest {
 
     @Test
     void addComment_ShouldReturnCommentDto() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(bookingRepository.findLastCompletedBooking(
                 anyLong(), anyLong(), eq(BookingStatus.APPROVED), Mockito.any(LocalDateTime.class)))
@@ -85,7 +85,7 @@ class CommentServiceImplTest {
 
     @Test
     void addComment_WhenUserNotBookedItem_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(bookingRepository.findLastCompletedBooking(anyLong(), anyLong(), eq(BookingStatus.APPROVED),
                 Mockito.any(LocalDateTime.class)))
@@ -101,7 +101,7 @@ class CommentServiceImplTest {
 
     @Test
     void addComment_WhenUserNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -113,7 +113,7 @@ class CommentServiceImplTest {
 
     @Test
     void addComment_WhenItemNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(
@@ -127,7 +127,7 @@ class CommentServiceImplTest {
     @Test
     void addComment_WhenBookingNotApproved_ShouldThrowException() {
         booking.setStatus(BookingStatus.WAITING);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(bookingRepository.findLastCompletedBooking(anyLong(), anyLong(), eq(BookingStatus.APPROVED),
                 Mockito.any(LocalDateTime.class)))
@@ -8,6 +8,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.GlobalExceptionHandler;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.ValidateException;
@@ -49,6 +50,17 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody()).containsEntry("message", "Доступ запрещен");
     }
 
+    @Test
+    void handleConflict_ShouldReturn409() {
+        ConflictException exception = new ConflictException("Вещь уже забронирована на это время");
+
+        ResponseEntity<Map<String, Object>> response = exceptionHandler.handleConflict(exception);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(409);
+        assertThat(response.getBody()).containsEntry("error", "Conflict");
+        assertThat(response.getBody()).containsEntry("message", "Вещь уже забронирована на это время");
+    }
+
     @Test
     void handleValidateException_ShouldReturn400() {
         ValidateException exception = new ValidateException("Ошибка валидации");
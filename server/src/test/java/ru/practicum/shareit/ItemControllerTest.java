@@ -10,24 +10,31 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.service.CommentService;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
+import ru.practicum.shareit.item.dto.ItemSearchPage;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
+import ru.practicum.shareit.item.importer.ItemBulkImporter;
 import ru.practicum.shareit.item.service.ItemService;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(ItemController.class)
@@ -42,6 +49,9 @@ class ItemControllerTest {
     @MockBean
     private CommentService commentService;
 
+    @MockBean
+    private ItemBulkImporter itemBulkImporter;
+
     private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     @Test
@@ -62,6 +72,33 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.name", is("Laptop")));
     }
 
+    @Test
+    void importItems_ShouldPassNdjsonBodyToImporter() throws Exception {
+        ItemImportResultDto result = new ItemImportResultDto(2, 1, 1,
+                List.of(new ItemImportErrorDto(2, "Имя вещи не должно быть пустым")));
+        when(itemBulkImporter.importNdjson(eq(1L), any())).thenReturn(result);
+
+        mockMvc.perform(post("/items/bulk")
+                        .contentType("application/x-ndjson")
+                        .header("X-Sharer-User-Id", 1L)
+                        .content("{\"name\":\"Drill\",\"description\":\"Drill\",\"available\":true}\n{}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    void importItems_ShouldPassJsonArrayToImporter() throws Exception {
+        when(itemBulkImporter.importJsonArray(eq(1L), any())).thenReturn(new ItemImportResultDto(0, 0, 0, List.of()));
+
+        mockMvc.perform(post("/items/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+    }
+
     @Test
     void updateItem_ShouldReturn200() throws Exception {
         ItemPatchDto itemPatchDto = new ItemPatchDto("Updated Laptop", null, false,
@@ -124,7 +161,7 @@ class ItemControllerTest {
                         true, null, null, null, null)
         );
 
-        when(itemService.getUserItems(anyLong())).thenReturn(items);
+        when(itemService.getUserItems(anyLong(), anyInt(), anyInt())).thenReturn(items);
 
         mockMvc.perform(get("/items")
                         .header("X-Sharer-User-Id", "1"))
@@ -132,6 +169,28 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.size()", is(1)));
     }
 
+    @Test
+    void getUserItems_ShouldStreamNdjsonWhenRequested() throws Exception {
+        when(itemService.getUserItemsAfter(1L, null, 100)).thenReturn(List.of(
+                new ItemDto(1L, "Laptop", "Powerful laptop", true, null, null, null, null),
+                new ItemDto(2L, "Drill", "Cordless drill", true, null, null, null, null)));
+
+        MvcResult mvcResult = mockMvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(objectMapper.readValue(lines[1], ItemDto.class).getName(), is("Drill"));
+    }
+
     @Test
     void searchItems_ShouldReturn200() throws Exception {
         List<ItemDto> items = List.of(
@@ -139,14 +198,44 @@ class ItemControllerTest {
                         true, null, null, null, null)
         );
 
-        when(itemService.searchItems(anyString())).thenReturn(items);
+        when(itemService.searchItems(anyString(), any(), anyInt(), anyInt()))
+                .thenReturn(new ItemSearchPage(items, "4:1"));
 
         mockMvc.perform(get("/items/search?text=laptop"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(ItemController.NEXT_CURSOR_HEADER, "4:1"))
                 .andExpect(jsonPath("$.size()", is(1)))
                 .andExpect(jsonPath("$[0].name", is("Laptop")));
     }
 
+    @Test
+    void searchItems_ShouldPassPagingParams() throws Exception {
+        when(itemService.searchItems("laptop", "4:5", 2, 3)).thenReturn(new ItemSearchPage(List.of(), null));
+
+        mockMvc.perform(get("/items/search?text=laptop&after=4:5&from=2&size=3"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ItemController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.size()", is(0)));
+    }
+
+    @Test
+    void getItemAvailability_ShouldReturn200() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(3);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(1L, from, to,
+                List.of(new TimeIntervalDto(from.plusDays(1), to)),
+                List.of(new TimeIntervalDto(from, from.plusDays(1))));
+        when(itemService.getItemAvailability(1L, from, to)).thenReturn(availability);
+
+        mockMvc.perform(get("/items/1/availability")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-04T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.busy.size()", is(1)))
+                .andExpect(jsonPath("$.free[0].start", is("2030-01-01T00:00:00")))
+                .andExpect(jsonPath("$.free[0].end", is("2030-01-02T00:00:00")));
+    }
+
     @Test
     void addComment_ShouldReturn200() throws Exception {
         CommentDto commentDto = new CommentDto(null, "Great product!", "User1", LocalDateTime.now());
@@ -209,7 +298,8 @@ class ItemControllerTest {
 
     @Test
     void searchItems_ShouldReturnEmptyList_WhenTextIsEmpty() throws Exception {
-        when(itemService.searchItems(anyString())).thenReturn(List.of());
+        when(itemService.searchItems(anyString(), any(), anyInt(), anyInt()))
+                .thenReturn(new ItemSearchPage(List.of(), null));
 
         mockMvc.perform(get("/items/search?text="))
                 .andExpect(status().isOk())
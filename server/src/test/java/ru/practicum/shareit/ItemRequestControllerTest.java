@@ -10,9 +10,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidateException;
 import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import java.time.LocalDateTime;
@@ -75,7 +77,7 @@ class ItemRequestControllerTest {
                 new ItemRequestResponseDto(1L, "Need a laptop", LocalDateTime.now(), List.of())
         );
 
-        when(itemRequestService.getAllItemRequests(anyLong(), any(Pageable.class))).thenReturn(requests);
+        when(itemRequestService.getAllItemRequests(1L, null, null, 0, 10)).thenReturn(requests);
 
         mockMvc.perform(get("/requests/all?from=0&size=10")
                         .header("X-Sharer-User-Id", "1"))
@@ -124,7 +126,7 @@ class ItemRequestControllerTest {
                 new ItemRequestResponseDto(1L, "Need a laptop", LocalDateTime.now(), List.of())
         );
 
-        when(itemRequestService.getAllItemRequests(anyLong(), any(Pageable.class))).thenReturn(requests);
+        when(itemRequestService.getAllItemRequests(1L, null, null, 0, 10)).thenReturn(requests);
 
         mockMvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", "1"))
@@ -144,10 +146,38 @@ class ItemRequestControllerTest {
     }
 
     @Test
-    void getAllRequests_ShouldReturn500_WhenInvalidPaginationParameters() throws Exception {
+    void getAllRequests_ShouldReturn400_WhenInvalidPaginationParameters() throws Exception {
+        when(itemRequestService.getAllItemRequests(1L, null, null, -1, -10))
+                .thenThrow(new ValidateException("Параметр from не может быть отрицательным, а size должен быть больше нуля"));
+
         mockMvc.perform(get("/requests/all?from=-1&size=-10")
                         .header("X-Sharer-User-Id", "1"))
-                .andExpect(status().isInternalServerError());
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getSuggestions_ShouldReturnOwnerInbox() throws Exception {
+        when(itemRequestService.getSuggestions(1L, 0, 10)).thenReturn(List.of(
+                new RequestSuggestionDto(3L, 5L, "Need a laptop", LocalDateTime.now(), 10L, "Laptop")));
+
+        mockMvc.perform(get("/requests/suggestions")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].requestId", is(5)))
+                .andExpect(jsonPath("$[0].itemName", is("Laptop")));
+    }
+
+    @Test
+    void getAllRequests_ShouldPassCursor() throws Exception {
+        when(itemRequestService.getAllItemRequests(1L, LocalDateTime.of(2030, 1, 1, 10, 0), 7L, 0, 10))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/requests/all")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("afterCreated", "2030-01-01T10:00:00")
+                        .param("afterId", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(0)));
     }
 
 
@@ -0,0 +1,119 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemRequestMatcherTest {
+
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private RequestSuggestionRepository suggestionRepository;
+
+    @InjectMocks
+    private ItemRequestMatcher matcher;
+
+    private User requestor;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        requestor = new User(1L, "John Doe", "john@example.com");
+        owner = new User(2L, "Alice Smith", "alice@example.com");
+    }
+
+    @Test
+    void match_ShouldSuggestItemsOfOtherOwnersBySignificantWords() {
+        ItemRequest request = new ItemRequest(5L, "Нужна дрель для ремонта", requestor, LocalDateTime.now());
+        Item drill = new Item(10L, "Дрель", "Ударная дрель", true, owner, null);
+        Item ownDrill = new Item(11L, "Дрель", "Старая дрель", true, requestor, null);
+        when(itemSearchIndex.searchAny(Set.of("дрель", "ремонта"), 0, 100)).thenReturn(List.of(10L, 11L));
+        when(itemRepository.findAvailableWithOwnerByIdIn(List.of(10L, 11L))).thenReturn(List.of(drill, ownDrill));
+
+        int suggested = matcher.match(request);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RequestSuggestion>> captor = ArgumentCaptor.forClass(List.class);
+        verify(suggestionRepository).saveAll(captor.capture());
+        assertThat(suggested, is(1));
+        assertThat(captor.getValue(), hasSize(1));
+        assertThat(captor.getValue().get(0).getItem(), is(drill));
+        assertThat(captor.getValue().get(0).getOwner(), is(owner));
+        assertThat(captor.getValue().get(0).getRequest(), is(request));
+    }
+
+    @Test
+    void match_WhenTopCandidatesAreFilteredOut_ShouldReadFurtherCandidates() {
+        ItemRequest request = new ItemRequest(5L, "Нужна дрель", requestor, LocalDateTime.now());
+        List<Long> ownIds = LongStream.rangeClosed(1, 100).boxed().toList();
+        List<Item> ownDrills = ownIds.stream()
+                .map(id -> new Item(id, "Дрель", "Своя дрель", true, requestor, null))
+                .toList();
+        Item drill = new Item(200L, "Дрель", "Ударная дрель", true, owner, null);
+        when(itemSearchIndex.searchAny(Set.of("дрель"), 0, 100)).thenReturn(ownIds);
+        when(itemSearchIndex.searchAny(Set.of("дрель"), 100, 100)).thenReturn(List.of(200L, 201L));
+        when(itemRepository.findAvailableWithOwnerByIdIn(ownIds)).thenReturn(ownDrills);
+        // Вещь 201 стала недоступной и в БД не найдена
+        when(itemRepository.findAvailableWithOwnerByIdIn(List.of(200L, 201L))).thenReturn(List.of(drill));
+
+        int suggested = matcher.match(request);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RequestSuggestion>> captor = ArgumentCaptor.forClass(List.class);
+        verify(suggestionRepository).saveAll(captor.capture());
+        assertThat(suggested, is(1));
+        assertThat(captor.getValue().get(0).getItem(), is(drill));
+    }
+
+    @Test
+    void match_ShouldStopAtSuggestionLimit() {
+        ItemRequest request = new ItemRequest(5L, "Нужна дрель", requestor, LocalDateTime.now());
+        List<Long> ids = LongStream.rangeClosed(1, 100).boxed().toList();
+        List<Item> drills = ids.stream()
+                .map(id -> new Item(id, "Дрель", "Ударная дрель", true, owner, null))
+                .toList();
+        when(itemSearchIndex.searchAny(Set.of("дрель"), 0, 100)).thenReturn(ids);
+        when(itemRepository.findAvailableWithOwnerByIdIn(ids)).thenReturn(drills);
+
+        assertThat(matcher.match(request), is(50));
+        verify(itemSearchIndex, times(1)).searchAny(anyCollection(), anyInt(), anyInt());
+    }
+
+    @Test
+    void match_WhenNothingMatches_ShouldNotTouchDatabase() {
+        ItemRequest request = new ItemRequest(5L, "Нужна пила", requestor, LocalDateTime.now());
+        when(itemSearchIndex.searchAny(anyCollection(), anyInt(), anyInt())).thenReturn(List.of());
+
+        assertThat(matcher.match(request), is(0));
+        verifyNoInteractions(itemRepository, suggestionRepository);
+    }
+}
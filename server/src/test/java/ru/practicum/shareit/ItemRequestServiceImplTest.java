@@ -7,17 +7,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.common.OffsetPageRequest;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidateException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.ItemRequestView;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestSuggestionRepository;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -37,39 +43,48 @@ class ItemRequestServiceImplTest {
     private ItemRequestRepository itemRequestRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private RequestSuggestionRepository suggestionRepository;
+
+    @Mock
+    private ItemRequestMatcher itemRequestMatcher;
+
     @InjectMocks
     private ItemRequestServiceImpl itemRequestService;
 
     private User user;
     private ItemRequest itemRequest;
+    private ItemRequestView itemRequestView;
     private ItemRequestDto itemRequestDto;
 
     @BeforeEach
     void setUp() {
         user = new User(1L, "John Doe", "john@example.com");
         itemRequest = new ItemRequest(1L, "Need a laptop", user, LocalDateTime.now());
+        itemRequestView = new ItemRequestView(1L, "Need a laptop", itemRequest.getCreated());
         itemRequestDto = new ItemRequestDto(null, "Need a laptop", LocalDateTime.now());
     }
 
     @Test
     void createItemRequest_ShouldReturnItemRequestDto() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRequestRepository.save(Mockito.any(ItemRequest.class))).thenReturn(itemRequest);
 
         ItemRequestDto result = itemRequestService.createItemRequest(user.getId(), itemRequestDto);
 
         assertThat(result, notNullValue());
         assertThat(result.getDescription(), is("Need a laptop"));
+        verify(itemRequestMatcher).match(itemRequest);
     }
 
     @Test
     void createItemRequest_WhenUserNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -81,8 +96,8 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getUserItemRequests_ShouldReturnRequestsList() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findByRequestorIdOrderByCreatedDesc(anyLong())).thenReturn(List.of(itemRequest));
+        when(userCache.existsById(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findByRequestorIdOrderByCreatedDesc(anyLong())).thenReturn(List.of(itemRequestView));
 
         List<ItemRequestResponseDto> result = itemRequestService.getUserItemRequests(user.getId());
 
@@ -91,9 +106,27 @@ class ItemRequestServiceImplTest {
         assertThat(result.get(0).getDescription(), is("Need a laptop"));
     }
 
+    @Test
+    void getUserItemRequests_ShouldLoadItemsForAllRequestsInOneQuery() {
+        ItemRequestView secondRequest = new ItemRequestView(2L, "Need a drill", LocalDateTime.now());
+        ItemView laptop = new ItemView(10L, "Laptop", "Powerful laptop", true, 1L);
+        ItemView drill = new ItemView(11L, "Drill", "Cordless drill", true, 2L);
+        ItemView secondLaptop = new ItemView(12L, "Old laptop", "Still works", true, 1L);
+        when(userCache.existsById(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findByRequestorIdOrderByCreatedDesc(anyLong()))
+                .thenReturn(List.of(itemRequestView, secondRequest));
+        when(itemRepository.findByRequestIdIn(List.of(1L, 2L))).thenReturn(List.of(laptop, drill, secondLaptop));
+
+        List<ItemRequestResponseDto> result = itemRequestService.getUserItemRequests(user.getId());
+
+        assertThat(result.get(0).getItems().stream().map(ItemDto::getId).toList(), contains(10L, 12L));
+        assertThat(result.get(1).getItems().stream().map(ItemDto::getId).toList(), contains(11L));
+        verify(itemRepository, never()).findByRequestId(anyLong());
+    }
+
     @Test
     void getUserItemRequests_WhenUserNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.existsById(anyLong())).thenReturn(false);
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -105,7 +138,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getUserItemRequests_WhenNoRequests_ShouldReturnEmptyList() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.existsById(anyLong())).thenReturn(true);
         when(itemRequestRepository.findByRequestorIdOrderByCreatedDesc(anyLong())).thenReturn(Collections.emptyList());
 
         List<ItemRequestResponseDto> result = itemRequestService.getUserItemRequests(user.getId());
@@ -115,12 +148,12 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getAllItemRequests_ShouldReturnRequestsList() {
-        Pageable pageable = PageRequest.of(0, 10);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(anyLong(), eq(pageable)))
-                .thenReturn(List.of(itemRequest));
+        when(userCache.existsById(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findFeed(anyLong(), Mockito.any(LocalDateTime.class), eq(Long.MAX_VALUE),
+                eq(OffsetPageRequest.of(0, 10))))
+                .thenReturn(List.of(itemRequestView));
 
-        List<ItemRequestResponseDto> result = itemRequestService.getAllItemRequests(user.getId(), pageable);
+        List<ItemRequestResponseDto> result = itemRequestService.getAllItemRequests(user.getId(), null, null, 0, 10);
 
         assertThat(result, not(empty()));
         assertThat(result.size(), is(1));
@@ -129,12 +162,11 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getAllItemRequests_WhenUserNotFound_ShouldThrowException() {
-        Pageable pageable = PageRequest.of(0, 10);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.existsById(anyLong())).thenReturn(false);
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
-                () -> itemRequestService.getAllItemRequests(user.getId(), pageable)
+                () -> itemRequestService.getAllItemRequests(user.getId(), null, null, 0, 10)
         );
 
         assertThat(exception.getMessage(), is("Пользователь не найден"));
@@ -142,19 +174,30 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getAllItemRequests_WhenNoRequests_ShouldReturnEmptyList() {
-        Pageable pageable = PageRequest.of(0, 10);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(itemRequestRepository.findByRequestorIdNotOrderByCreatedDesc(anyLong(), eq(pageable)))
+        LocalDateTime afterCreated = LocalDateTime.now();
+        when(userCache.existsById(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findFeed(anyLong(), eq(afterCreated), eq(5L), Mockito.any()))
                 .thenReturn(Collections.emptyList());
 
-        List<ItemRequestResponseDto> result = itemRequestService.getAllItemRequests(user.getId(), pageable);
+        List<ItemRequestResponseDto> result = itemRequestService.getAllItemRequests(user.getId(), afterCreated, 5L,
+                0, 10);
 
         assertThat(result, is(empty()));
     }
 
+    @Test
+    void getAllItemRequests_WhenPageParamsInvalid_ShouldThrowException() {
+        when(userCache.existsById(anyLong())).thenReturn(true);
+
+        assertThrows(ValidateException.class,
+                () -> itemRequestService.getAllItemRequests(user.getId(), null, null, -1, 10));
+        assertThrows(ValidateException.class,
+                () -> itemRequestService.getAllItemRequests(user.getId(), null, 5L, 0, 10));
+    }
+
     @Test
     void getItemRequestById_ShouldReturnRequest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.existsById(anyLong())).thenReturn(true);
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
 
         ItemRequestResponseDto result = itemRequestService.getItemRequestById(user.getId(), itemRequest.getId());
@@ -165,7 +208,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getItemRequestById_WhenUserNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.existsById(anyLong())).thenReturn(false);
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -177,7 +220,7 @@ class ItemRequestServiceImplTest {
 
     @Test
     void getItemRequestById_WhenRequestNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.existsById(anyLong())).thenReturn(true);
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(
@@ -187,4 +230,16 @@ class ItemRequestServiceImplTest {
 
         assertThat(exception.getMessage(), is("Запрос не найден"));
     }
+
+    @Test
+    void getSuggestions_ShouldReturnOwnerInbox() {
+        RequestSuggestionDto suggestion = new RequestSuggestionDto(3L, 1L, "Need a laptop", LocalDateTime.now(),
+                10L, "Laptop");
+        when(userCache.existsById(anyLong())).thenReturn(true);
+        when(suggestionRepository.findInbox(user.getId(), OffsetPageRequest.of(0, 10))).thenReturn(List.of(suggestion));
+
+        List<RequestSuggestionDto> result = itemRequestService.getSuggestions(user.getId(), 0, 10);
+
+        assertThat(result, contains(suggestion));
+    }
 }
@@ -4,11 +4,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.dto.RequestSuggestionDto;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
@@ -34,6 +41,12 @@ class ItemRequestServiceIntegrationTest {
     @Autowired
     private ItemRequestRepository itemRequestRepository;
 
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
     private User user;
     private ItemRequestDto itemRequestDto;
 
@@ -61,6 +74,69 @@ class ItemRequestServiceIntegrationTest {
         assertThat(requests.get(0).getDescription(), is("Need a laptop"));
     }
 
+    @Test
+    void getAllItemRequests_ShouldAttachAnsweringItemsToEachRequest() {
+        User other = userRepository.save(new User(null, "Alice Smith", "alice@example.com"));
+        ItemRequestDto laptopRequest = itemRequestService.createItemRequest(other.getId(), itemRequestDto);
+        ItemRequestDto drillRequest = itemRequestService.createItemRequest(other.getId(),
+                new ItemRequestDto(null, "Need a drill", LocalDateTime.now()));
+        Item laptop = itemRepository.save(new Item(null, "Laptop", "Powerful laptop", true, user,
+                itemRequestRepository.getReferenceById(laptopRequest.getId())));
+
+        List<ItemRequestResponseDto> requests = itemRequestService.getAllItemRequests(user.getId(), null, null,
+                0, 10);
+
+        assertThat(requests, hasSize(2));
+        ItemRequestResponseDto withItem = requests.stream()
+                .filter(request -> request.getId().equals(laptopRequest.getId()))
+                .findFirst()
+                .orElseThrow();
+        ItemRequestResponseDto withoutItem = requests.stream()
+                .filter(request -> request.getId().equals(drillRequest.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(withItem.getItems().stream().map(ItemDto::getId).toList(), contains(laptop.getId()));
+        assertThat(withoutItem.getItems(), empty());
+    }
+
+    @Test
+    void getAllItemRequests_ShouldContinueAfterCursorDespiteNewRequests() {
+        User other = userRepository.save(new User(null, "Alice Smith", "alice@example.com"));
+        LocalDateTime created = LocalDateTime.of(2030, 1, 1, 10, 0);
+        ItemRequest first = itemRequestRepository.save(new ItemRequest(null, "First", other, created));
+        ItemRequest second = itemRequestRepository.save(new ItemRequest(null, "Second", other, created));
+        ItemRequest third = itemRequestRepository.save(new ItemRequest(null, "Third", other, created.minusDays(1)));
+
+        List<ItemRequestResponseDto> page = itemRequestService.getAllItemRequests(user.getId(), null, null, 0, 2);
+        itemRequestRepository.save(new ItemRequest(null, "Newest", other, created.plusDays(1)));
+        ItemRequestResponseDto last = page.get(page.size() - 1);
+        List<ItemRequestResponseDto> next = itemRequestService.getAllItemRequests(user.getId(),
+                last.getCreated(), last.getId(), 0, 2);
+
+        assertThat(page.stream().map(ItemRequestResponseDto::getId).toList(),
+                contains(second.getId(), first.getId()));
+        assertThat(next.stream().map(ItemRequestResponseDto::getId).toList(), contains(third.getId()));
+    }
+
+    @Test
+    void createItemRequest_ShouldSuggestMatchingItemsToTheirOwners() {
+        User owner = userRepository.save(new User(null, "Alice Smith", "alice@example.com"));
+        ItemDto drill = itemService.createItem(owner.getId(), new ItemDto(null, "Дрель", "Ударная дрель", true,
+                null, null, null, null));
+        itemService.createItem(owner.getId(), new ItemDto(null, "Молоток", "Обычный", true, null, null, null, null));
+        // Тестовая транзакция откатывается, поэтому изменения индекса, отложенные до фиксации, применяем сами
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+        ItemRequestDto request = itemRequestService.createItemRequest(user.getId(),
+                new ItemRequestDto(null, "Нужна дрель на выходные", LocalDateTime.now()));
+
+        List<RequestSuggestionDto> suggestions = itemRequestService.getSuggestions(owner.getId(), 0, 10);
+        assertThat(suggestions, hasSize(1));
+        assertThat(suggestions.get(0).getRequestId(), is(request.getId()));
+        assertThat(suggestions.get(0).getItemId(), is(drill.getId()));
+        assertThat(itemRequestService.getSuggestions(user.getId(), 0, 10), empty());
+    }
+
     @Test
     void getItemRequestById_ShouldReturnItemRequest() {
         ItemRequestDto savedRequest = itemRequestService.createItemRequest(user.getId(), itemRequestDto);
@@ -98,7 +174,7 @@ class ItemRequestServiceIntegrationTest {
     @Test
     void getAllItemRequests_ShouldThrowException_WhenUserNotFound() {
         Exception exception = assertThrows(NotFoundException.class, () ->
-                itemRequestService.getAllItemRequests(999L, PageRequest.of(0, 10)));
+                itemRequestService.getAllItemRequests(999L, null, null, 0, 10));
 
         assertThat(exception.getMessage(), containsString("Пользователь не найден"));
     }
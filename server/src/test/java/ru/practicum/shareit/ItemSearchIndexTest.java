@@ -0,0 +1,173 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchDocument;
+import ru.practicum.shareit.item.search.ItemSearchHit;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSearchIndex index;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User(1L, "John Doe", "john@example.com");
+    }
+
+    @Test
+    void search_ShouldMatchByCaseInsensitivePrefix() {
+        index.index(new Item(1L, "Аккумуляторная дрель", "Дрель + аккумулятор", true, owner, null));
+        index.index(new Item(2L, "Отвёртка", "Аккумуляторная отвёртка", true, owner, null));
+        index.index(new Item(3L, "Молоток", "Обычный молоток", true, owner, null));
+
+        assertThat(index.search("аккУМУлятор"), contains(1L, 2L));
+        assertThat(index.search("дре"), contains(1L));
+        assertThat(index.search("пила"), empty());
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+        index.index(new Item(1L, "Case", "Fits any drill", true, owner, null));
+        index.index(new Item(2L, "Drill", "Cordless", true, owner, null));
+        index.index(new Item(3L, "Drilling machine", "Heavy", true, owner, null));
+
+        assertThat(index.search("drill"), contains(2L, 3L, 1L));
+    }
+
+    @Test
+    void search_ShouldRequireAllQueryWords() {
+        index.index(new Item(1L, "Cordless drill", "Makita", true, owner, null));
+        index.index(new Item(2L, "Drill", "Bosch", true, owner, null));
+
+        assertThat(index.search("drill cord"), contains(1L));
+    }
+
+    @Test
+    void index_ShouldReplaceTokensOnUpdateAndDropUnavailableItems() {
+        Item item = new Item(1L, "Drill", "Cordless", true, owner, null);
+        index.index(item);
+
+        item.setName("Saw");
+        index.index(item);
+        assertThat(index.search("drill"), empty());
+        assertThat(index.search("saw"), contains(1L));
+
+        item.setAvailable(false);
+        index.index(item);
+        assertThat(index.search("saw"), empty());
+    }
+
+    @Test
+    void search_ShouldReturnPageAfterCursorAndOffset() {
+        for (long id = 1; id <= 5; id++) {
+            index.index(new Item(id, "Drill " + id, "Cordless", true, owner, null));
+        }
+
+        ItemSearchHit second = index.search("drill", null, 0, 2).get(1);
+
+        assertThat(ids(index.search("drill", null, 0, 2)), contains(1L, 2L));
+        assertThat(ids(index.search("drill", second, 0, 2)), contains(3L, 4L));
+        assertThat(ids(index.search("drill", second, 1, 10)), contains(4L, 5L));
+        assertThat(index.search("drill", null, 10, 2), empty());
+    }
+
+    @Test
+    void search_ShouldContinueAfterCursorThatLeftResults() {
+        index.index(new Item(1L, "Drill", "Cordless", true, owner, null));
+        index.index(new Item(2L, "Drill", "Hammer", true, owner, null));
+        index.index(new Item(3L, "Saw", "Cordless drill", true, owner, null));
+        index.index(new Item(4L, "Saw", "Hand drill", true, owner, null));
+        ItemSearchHit cursor = index.search("drill", null, 0, 2).get(1);
+        index.index(new Item(2L, "Drill", "Hammer", false, owner, null));
+
+        assertThat(ids(index.search("drill", cursor, 0, 10)), contains(3L, 4L));
+    }
+
+    @Test
+    void searchHit_ShouldRoundTripThroughCursor() {
+        ItemSearchHit hit = new ItemSearchHit(42L, 7);
+
+        assertThat(hit.toCursor(), is("7:42"));
+        assertThat(ItemSearchHit.fromCursor(hit.toCursor()), is(hit));
+        assertThrows(IllegalArgumentException.class, () -> ItemSearchHit.fromCursor("42"));
+        assertThrows(IllegalArgumentException.class, () -> ItemSearchHit.fromCursor("7:drill"));
+    }
+
+    @Test
+    void search_ShouldSelectTopResultsInRankingOrder() {
+        for (long id = 1; id <= 20; id++) {
+            index.index(new Item(id, id % 3 == 0 ? "Drill" : "Box", "Drill", true, owner, null));
+        }
+
+        assertThat(ids(index.search("drill", null, 0, 4)), contains(3L, 6L, 9L, 12L));
+        assertThat(ids(index.search("drill", null, 6, 3)), contains(1L, 2L, 4L));
+    }
+
+    @Test
+    void search_WhenQueryHasNoWords_ShouldReturnEmptyList() {
+        index.index(new Item(1L, "Drill", "Cordless", true, owner, null));
+
+        assertThat(index.search("  ,.! "), empty());
+        assertThat(index.search(null), empty());
+    }
+
+    @Test
+    void warmUp_ShouldLoadAvailableItemsFromRepository() {
+        when(itemRepository.findSearchDocuments(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(new ItemSearchDocument(5L, "Tent", "Camping tent")));
+
+        index.warmUp();
+
+        assertThat(index.search("camp"), contains(5L));
+    }
+
+    @Test
+    void searchAny_ShouldRankByNumberOfMatchedWords() {
+        index.index(new Item(1L, "Дрель", "Ударная", true, owner, null));
+        index.index(new Item(2L, "Дрель", "Аккумуляторная ударная", true, owner, null));
+        index.index(new Item(3L, "Молоток", "Обычный", true, owner, null));
+
+        assertThat(index.searchAny(List.of("дрель", "аккумулятор"), 0, 10), contains(2L, 1L));
+        assertThat(index.searchAny(List.of("дрель", "молоток"), 0, 1), contains(1L));
+        assertThat(index.searchAny(List.of("дрель", "молоток"), 1, 10), contains(2L, 3L));
+        assertThat(index.searchAny(List.of(), 0, 10), empty());
+    }
+
+    @Test
+    void matches_ShouldCheckItemAgainstQuery() {
+        ItemView item = new ItemView(1L, "Cordless drill", "Makita", true, null);
+
+        assertThat(index.matches(item, "makita dri"), is(true));
+        assertThat(index.matches(item, "bosch"), is(false));
+    }
+
+    private static List<Long> ids(List<ItemSearchHit> hits) {
+        return hits.stream().map(ItemSearchHit::id).toList();
+    }
+}
@@ -8,22 +8,34 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.BookingIntervalIndex;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.dto.CommentView;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.common.OffsetPageRequest;
 import ru.practicum.shareit.exceptions.AccessDeniedException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidateException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
+import ru.practicum.shareit.item.dto.ItemSearchPage;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchHit;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,13 +51,17 @@ public class ItemServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
     @Mock
-    private UserRepository userRepository;
+    private UserCache userCache;
     @Mock
     private ItemRequestRepository itemRequestRepository;
     @Mock
     private BookingRepository bookingRepository;
     @Mock
     private CommentRepository commentRepository;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -55,9 +71,13 @@ public class ItemServiceImplTest {
     private Item item;
     private ItemDto itemDto;
     private ItemPatchDto itemPatchDto;
+    private ItemView itemView;
     private Booking lastBooking;
     private Booking nextBooking;
+    private BookingView lastBookingView;
+    private BookingView nextBookingView;
     private Comment comment;
+    private CommentView commentView;
 
     @BeforeEach
     void setUp() {
@@ -70,11 +90,16 @@ public class ItemServiceImplTest {
         lastBooking = new Booking(1L, LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(1), item, user, BookingStatus.APPROVED);
         nextBooking = new Booking(2L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(3), item, user, BookingStatus.APPROVED);
         comment = new Comment(1L, "Great item!", item, user, LocalDateTime.now().minusDays(2));
+
+        itemView = new ItemView(1L, "Laptop", "Powerful laptop", true, null);
+        lastBookingView = bookingView(lastBooking);
+        nextBookingView = bookingView(nextBooking);
+        commentView = new CommentView(1L, "Great item!", user.getName(), comment.getCreated(), item.getId());
     }
 
     @Test
     void createItem_ShouldReturnItemDto() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userCache.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.save(Mockito.<Item>any())).thenReturn(item);
 
         ItemDto result = itemService.createItem(user.getId(), itemDto);
@@ -86,7 +111,7 @@ public class ItemServiceImplTest {
 
     @Test
     void createItem_WhenUserNotFound_ShouldThrowException() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(userCache.findById(anyLong())).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -134,15 +159,53 @@ public class ItemServiceImplTest {
 
     @Test
     void getUserItems_ShouldReturnItemsList() {
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn(List.of(item));
-        when(bookingRepository.findFirstByItemIdAndStartBeforeOrderByStartDesc(anyLong(), any())).thenReturn(lastBooking);
-        when(bookingRepository.findFirstByItemIdAndStartAfterOrderByStartAsc(anyLong(), any())).thenReturn(nextBooking);
-        when(commentRepository.findByItemId(anyLong())).thenReturn(List.of(comment));
+        when(itemRepository.findOwnerItems(anyLong(), any())).thenReturn(List.of(itemView));
+        when(bookingRepository.findLastBookingsByItemIds(anyCollection(), any())).thenReturn(List.of(lastBookingView));
+        when(bookingRepository.findNextBookingsByItemIds(anyCollection(), any())).thenReturn(List.of(nextBookingView));
+        when(commentRepository.findByItemIdIn(anyCollection())).thenReturn(List.of(commentView));
 
-        List<ItemDto> result = itemService.getUserItems(user.getId());
+        List<ItemDto> result = itemService.getUserItems(user.getId(), 0, 10);
 
         assertThat(result, hasSize(1));
         assertThat(result.get(0).getName(), is("Laptop"));
+        assertThat(result.get(0).getLastBooking().getId(), is(lastBooking.getId()));
+        assertThat(result.get(0).getNextBooking().getId(), is(nextBooking.getId()));
+        assertThat(result.get(0).getComments(), hasSize(1));
+    }
+
+    @Test
+    void getUserItems_WhenNoItems_ShouldNotQueryBookingsAndComments() {
+        when(itemRepository.findOwnerItems(anyLong(), any())).thenReturn(List.of());
+
+        List<ItemDto> result = itemService.getUserItems(user.getId(), 0, 10);
+
+        assertThat(result, empty());
+        Mockito.verifyNoInteractions(bookingRepository, commentRepository);
+    }
+
+    @Test
+    void getUserItems_ShouldUseOffsetPage() {
+        when(itemRepository.findOwnerItems(user.getId(), OffsetPageRequest.of(3, 5))).thenReturn(List.of(itemView));
+
+        List<ItemDto> result = itemService.getUserItems(user.getId(), 3, 5);
+
+        assertThat(result, hasSize(1));
+    }
+
+    @Test
+    void getUserItems_WhenPageParamsInvalid_ShouldThrowException() {
+        assertThrows(ValidateException.class, () -> itemService.getUserItems(user.getId(), 0, 0));
+    }
+
+    @Test
+    void getUserItemsAfter_ShouldLoadNextChunkByKeyset() {
+        when(itemRepository.findOwnerItemsAfter(user.getId(), 0L, OffsetPageRequest.of(0, 50)))
+                .thenReturn(List.of(itemView));
+
+        List<ItemDto> result = itemService.getUserItemsAfter(user.getId(), null, 50);
+
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getId(), is(item.getId()));
     }
 
     @Test
@@ -160,25 +223,192 @@ public class ItemServiceImplTest {
 
     @Test
     void searchItems_ShouldReturnMatchingItems() {
-        when(itemRepository.searchByNameOrDescription(anyString())).thenReturn(List.of(item));
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(10))).thenReturn(hits(item.getId()));
+        when(itemRepository.findAvailableByIdIn(anyCollection())).thenReturn(List.of(itemView));
+        when(itemSearchIndex.matches(any(ItemView.class), anyString())).thenReturn(true);
 
-        List<ItemDto> result = itemService.searchItems("Laptop");
+        List<ItemDto> result = itemService.searchItems("Laptop", null, 0, 10).items();
 
         assertThat(result, hasSize(1));
         assertThat(result.get(0).getName(), is("Laptop"));
     }
 
+    @Test
+    void searchItems_ShouldLoadBookingsAndCommentsOnceForAllResults() {
+        ItemView stand = new ItemView(2L, "Laptop stand", "Stand for laptop", true, null);
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(10))).thenReturn(hits(1L, 2L));
+        when(itemRepository.findAvailableByIdIn(anyCollection())).thenReturn(List.of(stand, itemView));
+        when(itemSearchIndex.matches(any(ItemView.class), anyString())).thenReturn(true);
+        when(bookingRepository.findLastBookingsByItemIds(anyCollection(), any())).thenReturn(List.of(lastBookingView));
+        when(bookingRepository.findNextBookingsByItemIds(anyCollection(), any())).thenReturn(List.of());
+        when(commentRepository.findByItemIdIn(anyCollection())).thenReturn(List.of(commentView));
+
+        List<ItemDto> result = itemService.searchItems("Laptop", null, 0, 10).items();
+
+        assertThat(result, hasSize(2));
+        assertThat(result.get(0).getLastBooking().getId(), is(lastBooking.getId()));
+        assertThat(result.get(0).getComments(), hasSize(1));
+        assertThat(result.get(1).getLastBooking(), nullValue());
+        assertThat(result.get(1).getComments(), empty());
+        Mockito.verify(bookingRepository).findLastBookingsByItemIds(eq(List.of(1L, 2L)), any());
+        Mockito.verify(bookingRepository, Mockito.never()).findFirstByItemIdAndStartBeforeOrderByStartDesc(anyLong(),
+                any());
+        Mockito.verify(commentRepository, Mockito.never()).findByItemId(anyLong());
+    }
+
+    @Test
+    void searchItems_ShouldSkipItemsThatNoLongerMatchInDatabase() {
+        ItemView renamed = new ItemView(2L, "Bag", "Bag", true, null);
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(10))).thenReturn(hits(1L, 2L, 3L));
+        when(itemRepository.findAvailableByIdIn(anyCollection())).thenReturn(List.of(itemView, renamed));
+        when(itemSearchIndex.matches(itemView, "Laptop")).thenReturn(true);
+        when(itemSearchIndex.matches(renamed, "Laptop")).thenReturn(false);
+
+        List<ItemDto> result = itemService.searchItems("Laptop", null, 0, 10).items();
+
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).getId(), is(item.getId()));
+    }
+
+    @Test
+    void searchItems_ShouldRefillPageWhenItemsNoLongerMatchInDatabase() {
+        ItemView stand = new ItemView(3L, "Laptop stand", "Stand for laptop", true, null);
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(2))).thenReturn(hits(1L, 2L));
+        when(itemSearchIndex.search("Laptop", new ItemSearchHit(2L, 1), 0, 1)).thenReturn(hits(3L));
+        when(itemRepository.findAvailableByIdIn(List.of(1L, 2L))).thenReturn(List.of(itemView));
+        when(itemRepository.findAvailableByIdIn(List.of(3L))).thenReturn(List.of(stand));
+        when(itemSearchIndex.matches(any(ItemView.class), anyString())).thenReturn(true);
+
+        List<ItemDto> result = itemService.searchItems("Laptop", null, 0, 2).items();
+
+        assertThat(result.stream().map(ItemDto::getId).toList(), contains(1L, 3L));
+    }
+
+    @Test
+    void searchItems_ShouldStopAtEndOfResultsWithShortPage() {
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(3))).thenReturn(hits(1L, 2L));
+        when(itemRepository.findAvailableByIdIn(anyCollection())).thenReturn(List.of(itemView));
+        when(itemSearchIndex.matches(any(ItemView.class), anyString())).thenReturn(true);
+
+        List<ItemDto> result = itemService.searchItems("Laptop", null, 0, 3).items();
+
+        assertThat(result, hasSize(1));
+        Mockito.verify(itemSearchIndex, Mockito.times(1)).search(anyString(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchItems_WhenIndexFindsNothing_ShouldNotQueryDatabase() {
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(10))).thenReturn(List.of());
+
+        List<ItemDto> result = itemService.searchItems("Tent", null, 0, 10).items();
+
+        assertThat(result, empty());
+        Mockito.verifyNoInteractions(itemRepository, bookingRepository, commentRepository);
+    }
+
+    @Test
+    void searchItems_ShouldPassCursorAndPageToIndex() {
+        ItemSearchHit cursor = new ItemSearchHit(1L, 4);
+        when(itemSearchIndex.search("Laptop", cursor, 5, 2)).thenReturn(List.of());
+
+        List<ItemDto> result = itemService.searchItems("Laptop", "4:1", 5, 2).items();
+
+        assertThat(result, empty());
+        Mockito.verify(itemSearchIndex).search("Laptop", cursor, 5, 2);
+        Mockito.verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void searchItems_ShouldReturnPositionOfLastHitAsNextCursor() {
+        ItemView stand = new ItemView(3L, "Laptop stand", "Stand for laptop", true, null);
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(2)))
+                .thenReturn(List.of(new ItemSearchHit(1L, 4), new ItemSearchHit(3L, 2)));
+        when(itemRepository.findAvailableByIdIn(anyCollection())).thenReturn(List.of(itemView, stand));
+        when(itemSearchIndex.matches(any(ItemView.class), anyString())).thenReturn(true);
+
+        ItemSearchPage page = itemService.searchItems("Laptop", null, 0, 2);
+
+        assertThat(page.nextCursor(), is("2:3"));
+    }
+
+    @Test
+    void searchItems_AtEndOfResults_ShouldReturnNoNextCursor() {
+        when(itemSearchIndex.search(anyString(), isNull(), eq(0), eq(3))).thenReturn(hits(1L));
+        when(itemRepository.findAvailableByIdIn(anyCollection())).thenReturn(List.of(itemView));
+        when(itemSearchIndex.matches(any(ItemView.class), anyString())).thenReturn(true);
+
+        ItemSearchPage page = itemService.searchItems("Laptop", null, 0, 3);
+
+        assertThat(page.items(), hasSize(1));
+        assertThat(page.nextCursor(), nullValue());
+    }
+
+    @Test
+    void searchItems_WhenCursorMalformed_ShouldThrowException() {
+        assertThrows(ValidateException.class, () -> itemService.searchItems("Laptop", "99", 0, 10));
+        assertThrows(ValidateException.class, () -> itemService.searchItems("Laptop", "x:99", 0, 10));
+    }
+
+    @Test
+    void searchItems_WhenPageParamsInvalid_ShouldThrowException() {
+        assertThrows(ValidateException.class, () -> itemService.searchItems("Laptop", null, -1, 10));
+        assertThrows(ValidateException.class, () -> itemService.searchItems("Laptop", null, 0, 0));
+    }
+
     @Test
     void searchItems_WhenTextIsEmpty_ShouldReturnEmptyList() {
-        List<ItemDto> result = itemService.searchItems("");
+        List<ItemDto> result = itemService.searchItems("", null, 0, 10).items();
 
         assertThat(result, empty());
     }
 
     @Test
     void searchItems_WhenTextIsNull_ShouldReturnEmptyList() {
-        List<ItemDto> result = itemService.searchItems(null);
+        List<ItemDto> result = itemService.searchItems(null, null, 0, 10).items();
 
         assertThat(result, empty());
     }
+
+    @Test
+    void getItemAvailability_ShouldReturnBusyIntervalsAndFreeGaps() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        List<TimeIntervalDto> busy = List.of(
+                new TimeIntervalDto(from.plusDays(2), from.plusDays(4)),
+                new TimeIntervalDto(from.plusDays(6), to));
+        when(itemRepository.existsById(item.getId())).thenReturn(true);
+        when(bookingIntervalIndex.findBusyIntervals(item.getId(), from, to)).thenReturn(busy);
+
+        ItemAvailabilityDto result = itemService.getItemAvailability(item.getId(), from, to);
+
+        assertThat(result.getBusy(), is(busy));
+        assertThat(result.getFree(), contains(
+                new TimeIntervalDto(from, from.plusDays(2)),
+                new TimeIntervalDto(from.plusDays(4), from.plusDays(6))));
+    }
+
+    @Test
+    void getItemAvailability_WhenItemNotFound_ShouldThrowException() {
+        LocalDateTime from = LocalDateTime.now();
+        when(itemRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> itemService.getItemAvailability(99L, from, from.plusDays(1)));
+    }
+
+    @Test
+    void getItemAvailability_WhenPeriodIsEmpty_ShouldThrowException() {
+        LocalDateTime from = LocalDateTime.now();
+
+        assertThrows(ValidateException.class, () -> itemService.getItemAvailability(item.getId(), from, from));
+    }
+
+    private BookingView bookingView(Booking booking) {
+        return new BookingView(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus(),
+                item.getId(), item.getName(), item.getDescription(), item.getAvailable(), null,
+                booking.getBooker().getId(), booking.getBooker().getName(), booking.getBooker().getEmail());
+    }
+
+    private static List<ItemSearchHit> hits(Long... ids) {
+        return Arrays.stream(ids).map(id -> new ItemSearchHit(id, 1)).toList();
+    }
 }
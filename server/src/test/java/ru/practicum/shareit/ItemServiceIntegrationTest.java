@@ -5,15 +5,37 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
+import ru.practicum.shareit.item.dto.ItemSearchPage;
+import ru.practicum.shareit.item.dto.TimeIntervalDto;
+import ru.practicum.shareit.item.importer.ItemBulkImporter;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -32,6 +54,21 @@ class ItemServiceIntegrationTest {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    @Autowired
+    private ItemBulkImporter itemBulkImporter;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
     private User user;
     private ItemDto itemDto;
 
@@ -55,12 +92,78 @@ class ItemServiceIntegrationTest {
     @Test
     void getUserItems_ShouldReturnList() {
         itemService.createItem(user.getId(), itemDto);
-        List<ItemDto> items = itemService.getUserItems(user.getId());
+        List<ItemDto> items = itemService.getUserItems(user.getId(), 0, 10);
 
         assertThat(items, hasSize(1));
         assertThat(items.get(0).getName(), equalTo("Laptop"));
     }
 
+    @Test
+    void getUserItems_ShouldAttachBookingsAndCommentsToEachItem() {
+        User booker = userRepository.save(new User(null, "Alice Smith", "alice@example.com"));
+        Item laptop = itemRepository.save(new Item(null, "Laptop", "Powerful laptop", true, user, null));
+        Item drill = itemRepository.save(new Item(null, "Drill", "Cordless drill", true, user, null));
+        LocalDateTime now = LocalDateTime.now();
+
+        bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4), laptop, booker,
+                BookingStatus.APPROVED));
+        Booking lastLaptop = bookingRepository.save(new Booking(null, now.minusDays(2), now.minusDays(1), laptop,
+                booker, BookingStatus.APPROVED));
+        Booking nextLaptop = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), laptop,
+                booker, BookingStatus.WAITING));
+        bookingRepository.save(new Booking(null, now.plusDays(3), now.plusDays(4), laptop, booker,
+                BookingStatus.WAITING));
+        Booking nextDrill = bookingRepository.save(new Booking(null, now.plusDays(2), now.plusDays(3), drill,
+                booker, BookingStatus.WAITING));
+        commentRepository.save(new Comment(null, "Great laptop", laptop, booker, now.minusHours(1)));
+
+        List<ItemDto> items = itemService.getUserItems(user.getId(), 0, 10);
+
+        assertThat(items, hasSize(2));
+        ItemDto laptopDto = items.stream().filter(i -> i.getId().equals(laptop.getId())).findFirst().orElseThrow();
+        ItemDto drillDto = items.stream().filter(i -> i.getId().equals(drill.getId())).findFirst().orElseThrow();
+
+        assertThat(laptopDto.getLastBooking().getId(), is(lastLaptop.getId()));
+        assertThat(laptopDto.getNextBooking().getId(), is(nextLaptop.getId()));
+        assertThat(laptopDto.getComments(), hasSize(1));
+        assertThat(laptopDto.getComments().get(0).getAuthorName(), is("Alice Smith"));
+
+        assertThat(drillDto.getLastBooking(), nullValue());
+        assertThat(drillDto.getNextBooking().getId(), is(nextDrill.getId()));
+        assertThat(drillDto.getComments(), empty());
+    }
+
+    @Test
+    void getUserItems_ShouldReturnRequestedPageOrderedById() {
+        ItemDto first = itemService.createItem(user.getId(), itemDto);
+        ItemDto second = itemService.createItem(user.getId(), itemDto);
+        ItemDto third = itemService.createItem(user.getId(), itemDto);
+
+        List<ItemDto> page = itemService.getUserItems(user.getId(), 1, 1);
+        List<ItemDto> chunk = itemService.getUserItemsAfter(user.getId(), first.getId(), 10);
+
+        assertThat(page.stream().map(ItemDto::getId).toList(), contains(second.getId()));
+        assertThat(chunk.stream().map(ItemDto::getId).toList(), contains(second.getId(), third.getId()));
+    }
+
+    @Test
+    void getItemAvailability_ShouldIgnoreRejectedBookings() {
+        User booker = userRepository.save(new User(null, "Alice Smith", "alice@example.com"));
+        Item item = itemRepository.findById(itemService.createItem(user.getId(), itemDto).getId()).orElseThrow();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        bookingRepository.save(new Booking(null, from.plusDays(1), from.plusDays(2), item, booker,
+                BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, from.plusDays(3), from.plusDays(4), item, booker,
+                BookingStatus.REJECTED));
+
+        ItemAvailabilityDto availability = itemService.getItemAvailability(item.getId(), from, from.plusDays(5));
+
+        assertThat(availability.getBusy(), contains(new TimeIntervalDto(from.plusDays(1), from.plusDays(2))));
+        assertThat(availability.getFree(), contains(
+                new TimeIntervalDto(from, from.plusDays(1)),
+                new TimeIntervalDto(from.plusDays(2), from.plusDays(5))));
+    }
+
     @Test
     void getItemById_ShouldReturnItem() {
         ItemDto savedItem = itemService.createItem(user.getId(), itemDto);
@@ -94,12 +197,62 @@ class ItemServiceIntegrationTest {
     @Test
     void searchItems_ShouldReturnMatchingItems() {
         itemService.createItem(user.getId(), itemDto);
-        List<ItemDto> foundItems = itemService.searchItems("Laptop");
+        commitSearchIndex();
+        List<ItemDto> foundItems = itemService.searchItems("Laptop", null, 0, 10).items();
 
         assertThat(foundItems, hasSize(1));
         assertThat(foundItems.get(0).getName(), containsString("Laptop"));
     }
 
+    @Test
+    void searchItems_ShouldPageByOffsetAndCursor() {
+        ItemDto first = itemService.createItem(user.getId(), new ItemDto(null, "Drill", "Cordless drill", true,
+                null, null, null, null));
+        ItemDto second = itemService.createItem(user.getId(), new ItemDto(null, "Drill", "Hammer drill", true,
+                null, null, null, null));
+        ItemDto third = itemService.createItem(user.getId(), new ItemDto(null, "Drill", "Corded drill", true,
+                null, null, null, null));
+        commitSearchIndex();
+
+        ItemSearchPage firstPage = itemService.searchItems("drill", null, 0, 2);
+        ItemSearchPage nextPage = itemService.searchItems("drill", firstPage.nextCursor(), 0, 2);
+        List<ItemDto> offsetPage = itemService.searchItems("drill", null, 1, 1).items();
+
+        assertThat(firstPage.items().stream().map(ItemDto::getId).toList(), contains(first.getId(), second.getId()));
+        assertThat(nextPage.items().stream().map(ItemDto::getId).toList(), contains(third.getId()));
+        assertThat(nextPage.nextCursor(), nullValue());
+        assertThat(offsetPage.stream().map(ItemDto::getId).toList(), contains(second.getId()));
+    }
+
+    @Test
+    void searchItems_WhenCursorItemRenamedBetweenPages_ShouldNotSkipResults() {
+        itemService.createItem(user.getId(), new ItemDto(null, "Drill", "Cordless", true, null, null, null, null));
+        ItemDto cursorItem = itemService.createItem(user.getId(), new ItemDto(null, "Drill", "Hammer", true,
+                null, null, null, null));
+        ItemDto prefixMatch = itemService.createItem(user.getId(), new ItemDto(null, "Drilling rig", "Heavy", true,
+                null, null, null, null));
+        ItemDto descriptionMatch = itemService.createItem(user.getId(), new ItemDto(null, "Case", "Fits any drill",
+                true, null, null, null, null));
+        commitSearchIndex();
+
+        ItemSearchPage firstPage = itemService.searchItems("drill", null, 0, 2);
+        assertThat(firstPage.items().get(1).getId(), is(cursorItem.getId()));
+        itemService.updateItem(user.getId(), cursorItem.getId(), new ItemPatchDto("Saw", "Hand saw", null, null));
+        commitSearchIndex();
+        ItemSearchPage nextPage = itemService.searchItems("drill", firstPage.nextCursor(), 0, 2);
+
+        assertThat(nextPage.items().stream().map(ItemDto::getId).toList(),
+                contains(prefixMatch.getId(), descriptionMatch.getId()));
+    }
+
+    @Test
+    void createItem_ShouldNotChangeSearchIndexBeforeCommit() {
+        ItemDto savedItem = itemService.createItem(user.getId(), new ItemDto(null, "Theodolite",
+                "Uncommitted theodolite", true, null, null, null, null));
+
+        assertThat(itemSearchIndex.search("theodolite"), not(hasItem(savedItem.getId())));
+    }
+
     @Test
     void deleteItem_ShouldRemoveItemFromDatabase() {
         ItemDto savedItem = itemService.createItem(user.getId(), itemDto);
@@ -118,4 +271,112 @@ class ItemServiceIntegrationTest {
 
         assertThat(exception.getMessage(), containsString("Пользователь не найден"));
     }
+
+    @Test
+    void importNdjson_ShouldSaveValidLinesAndReportRejectedOnes() throws Exception {
+        User requestor = userRepository.save(new User(null, "Requestor", "requestor@example.com"));
+        ItemRequest request = itemRequestRepository.save(
+                new ItemRequest(null, "Нужна палатка", requestor, LocalDateTime.now()));
+        String body = String.join("\n",
+                "{\"name\":\"Bulktent\",\"description\":\"Two person\",\"available\":true,"
+                        + "\"requestId\":" + request.getId() + "}",
+                "{\"name\":\" \",\"description\":\"No name\",\"available\":true}",
+                "",
+                "{\"name\":\"Bulkstove\",\"description\":\"Gas stove\"}",
+                "{\"name\":\"Bulkmat\",",
+                "{\"name\":\"Bulklamp\",\"description\":\"Lamp\",\"available\":true,\"requestId\":999999}",
+                "{\"name\":\"Bulkchair\",\"description\":\"Folding chair\",\"available\":false}");
+
+        ItemImportResultDto result = itemBulkImporter.importNdjson(user.getId(), stream(body));
+
+        assertThat(result.getTotal(), is(6));
+        assertThat(result.getCreated(), is(2));
+        assertThat(result.getFailed(), is(4));
+        assertThat(result.getErrors().stream().map(ItemImportErrorDto::getLine).collect(Collectors.toList()),
+                contains(2, 4, 5, 6));
+        assertThat(result.getErrors().get(0).getMessage(), is("Имя вещи не должно быть пустым"));
+        assertThat(result.getErrors().get(1).getMessage(), is("Доступность вещи обязательна"));
+        assertThat(result.getErrors().get(3).getMessage(), is("Запрос не найден"));
+
+        List<ItemDto> items = itemService.getUserItems(user.getId(), 0, 10);
+        assertThat(items.stream().map(ItemDto::getName).collect(Collectors.toList()),
+                containsInAnyOrder("Bulktent", "Bulkchair"));
+        assertThat(itemRepository.findByRequestId(request.getId()), hasSize(1));
+    }
+
+    @Test
+    void importNdjson_ShouldReportFirstHundredRejectedLinesAndCountAll() throws Exception {
+        String body = IntStream.rangeClosed(1, 250)
+                .mapToObj(i -> i % 5 == 0
+                        ? "{\"name\":\"Bulkcrate " + i + "\",\"description\":\"Crate\",\"available\":true}"
+                        : "{\"name\":\"Bulkcrate " + i + "\",\"description\":\"Crate\"}")
+                .collect(Collectors.joining("\n"));
+
+        ItemImportResultDto result = itemBulkImporter.importNdjson(user.getId(), stream(body));
+
+        assertThat(result.getTotal(), is(250));
+        assertThat(result.getCreated(), is(50));
+        assertThat(result.getFailed(), is(200));
+        assertThat(result.getErrors(), hasSize(100));
+        assertThat(result.getErrors().get(0).getLine(), is(1));
+        assertThat(result.getErrors().get(99).getLine(), is(124));
+    }
+
+    @Test
+    void importNdjson_ShouldReportLowestLinesWhenChunkErrorsArriveLate() throws Exception {
+        // Чётные строки ссылаются на несуществующий запрос: эти ошибки появятся только при сохранении порции,
+        // уже после ошибок проверки всех нечётных строк
+        String body = IntStream.rangeClosed(1, 1000)
+                .mapToObj(i -> i % 2 == 0
+                        ? "{\"name\":\"Bulkbag\",\"description\":\"Bag\",\"available\":true,\"requestId\":999999}"
+                        : "{\"name\":\" \",\"description\":\"Bag\",\"available\":true}")
+                .collect(Collectors.joining("\n"));
+
+        ItemImportResultDto result = itemBulkImporter.importNdjson(user.getId(), stream(body));
+
+        assertThat(result.getFailed(), is(1000));
+        assertThat(result.getErrors().stream().map(ItemImportErrorDto::getLine).collect(Collectors.toList()),
+                contains(IntStream.rangeClosed(1, 100).boxed().toArray()));
+        assertThat(result.getErrors().get(98).getMessage(), is("Имя вещи не должно быть пустым"));
+        assertThat(result.getErrors().get(99).getMessage(), is("Запрос не найден"));
+    }
+
+    @Test
+    void importJsonArray_ShouldSaveAllChunks() throws Exception {
+        int count = 1201;
+        String body = IntStream.rangeClosed(1, count)
+                .mapToObj(i -> "{\"name\":\"Bulkbox " + i + "\",\"description\":\"Box\",\"available\":true}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        ItemImportResultDto result = itemBulkImporter.importJsonArray(user.getId(), stream(body));
+
+        assertThat(result.getCreated(), is(count));
+        assertThat(result.getErrors(), empty());
+        assertThat(itemService.getUserItems(user.getId(), 0, 2000), hasSize(count));
+    }
+
+    @Test
+    void importJsonArray_ShouldStopAtSyntaxErrorAndKeepPreviousRecords() throws Exception {
+        String body = "[{\"name\":\"Bulkrope\",\"description\":\"Rope\",\"available\":true},{\"name\":}]";
+
+        ItemImportResultDto result = itemBulkImporter.importJsonArray(user.getId(), stream(body));
+
+        assertThat(result.getCreated(), is(1));
+        assertThat(result.getErrors(), hasSize(1));
+        assertThat(result.getErrors().get(0).getLine(), is(2));
+    }
+
+    @Test
+    void importNdjson_ShouldThrowException_WhenUserNotFound() {
+        assertThrows(NotFoundException.class, () -> itemBulkImporter.importNdjson(999L, stream("")));
+    }
+
+    // Тестовая транзакция откатывается, поэтому изменения индекса, отложенные до фиксации, применяем сами
+    private static void commitSearchIndex() {
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
 }
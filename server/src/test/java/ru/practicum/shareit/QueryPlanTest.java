@@ -0,0 +1,149 @@
+package ru.practicum.shareit;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.availability.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Горячие запросы репозиториев должны идти по индексам из миграций, а не полным просмотром таблиц.
+ * Проверяется SQL, который Hibernate на самом деле генерирует для методов репозиториев, поэтому тест
+ * ломается и при изменении запроса, и при изменении индексов.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+    private static final LocalDateTime AT = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CapturingStatementInspector statementInspector;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    Stream<Arguments> hotQueries() {
+        return Stream.of(
+                // BookingRepository: списки бронирований пользователя и владельца
+                query("findBookerBookings", () -> bookingRepository.findBookerBookings(1L, AT, 10L, PAGE)),
+                query("findBookerBookingsByStatus", () -> bookingRepository.findBookerBookingsByStatus(1L,
+                        BookingStatus.WAITING, AT, 10L, PAGE)),
+                query("findOwnerBookings", () -> bookingRepository.findOwnerBookings(1L, AT, 10L, PAGE)),
+                // BookingRepository: пересечение интервалов и последнее/следующее бронирование
+                query("existsOverlapping", () -> bookingRepository.existsOverlapping(1L, AT, AT.plusDays(1),
+                        BookingIntervalIndex.BUSY_STATUSES)),
+                query("findLastBookingsByItemIds", () -> bookingRepository.findLastBookingsByItemIds(
+                        List.of(1L, 2L, 3L), AT)),
+                query("findNextBookingsByItemIds", () -> bookingRepository.findNextBookingsByItemIds(
+                        List.of(1L, 2L, 3L), AT)),
+                query("findLastCompletedBooking", () -> bookingRepository.findLastCompletedBooking(1L, 2L,
+                        BookingStatus.APPROVED, AT)),
+                // ItemRepository
+                query("findOwnerItemsAfter", () -> itemRepository.findOwnerItemsAfter(1L, 5L, PAGE)),
+                query("findByRequestId", () -> itemRepository.findByRequestId(1L)),
+                // CommentRepository
+                query("findByItemIdIn", () -> commentRepository.findByItemIdIn(List.of(1L, 2L, 3L))),
+                // ItemRequestRepository
+                query("findByRequestorIdOrderByCreatedDesc",
+                        () -> itemRequestRepository.findByRequestorIdOrderByCreatedDesc(1L)),
+                query("findFeed", () -> itemRequestRepository.findFeed(1L, AT, 10L, PAGE)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQuery_ShouldUseIndex(String name, Runnable query) {
+        List<String> statements = statementInspector.capture(query);
+
+        assertThat(statements, not(empty()));
+        for (String sql : statements) {
+            // H2 строит план и для запроса с непривязанными параметрами
+            String plan = String.join("\n", jdbcTemplate.query(
+                    connection -> connection.prepareStatement("EXPLAIN " + sql),
+                    (rs, rowNum) -> rs.getString(1)));
+
+            assertThat(plan, not(containsStringIgnoringCase("tableScan")));
+        }
+    }
+
+    private static Arguments query(String name, Runnable query) {
+        return Arguments.of(name, query);
+    }
+
+    /**
+     * Запоминает SQL, отправленный Hibernate в БД из текущего потока во время capture.
+     */
+    static class CapturingStatementInspector implements StatementInspector {
+        private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+        List<String> capture(Runnable query) {
+            List<String> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                query.run();
+            } finally {
+                captured.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = captured.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        CapturingStatementInspector capturingStatementInspector() {
+            return new CapturingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(CapturingStatementInspector inspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Вещи и пользователи читаются из второго уровня кэша Hibernate без обращения к БД,
+ * а изменения через репозиторий сразу видны при следующем чтении.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserCache userCache;
+
+    private Statistics statistics;
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = userRepository.save(new User(null, "Cache Owner", "cache-owner@example.com"));
+        item = itemRepository.save(new Item(null, "Ladder", "Aluminium ladder", true, owner, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    void findById_ShouldReadItemAndOwnerFromCacheOnRepeatedRead() {
+        itemRepository.findById(item.getId());
+        userRepository.findById(owner.getId());
+        statistics.clear();
+
+        Item found = itemRepository.findById(item.getId()).orElseThrow();
+        User foundOwner = userRepository.findById(found.getOwner().getId()).orElseThrow();
+
+        assertThat(foundOwner.getName(), is("Cache Owner"));
+        assertThat(statistics.getDomainDataRegionStatistics("items").getHitCount(), is(1L));
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount(), is(1L));
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+    }
+
+    @Test
+    void evict_ShouldRemoveUserFromSecondLevelCache() {
+        userRepository.findById(owner.getId());
+        assertThat(entityManagerFactory.getCache().contains(User.class, owner.getId()), is(true));
+
+        userCache.evict(owner.getId());
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, owner.getId()), is(false));
+    }
+
+    @Test
+    void save_ShouldUpdateCachedItem() {
+        itemRepository.findById(item.getId());
+        item.setName("Step ladder");
+        itemRepository.save(item);
+        statistics.clear();
+
+        Item found = itemRepository.findById(item.getId()).orElseThrow();
+
+        assertThat(found.getName(), is("Step ladder"));
+        assertThat(statistics.getSecondLevelCacheMissCount(), is(0L));
+    }
+}
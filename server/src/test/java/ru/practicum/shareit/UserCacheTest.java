@@ -0,0 +1,96 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache userCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(userRepository, entityManagerFactory, meterRegistry);
+        user = new User(1L, "John Doe", "john@example.com");
+    }
+
+    @Test
+    void findById_ShouldLoadOnceAndCountHitsAndMisses() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        User first = userCache.findById(user.getId()).orElseThrow();
+        User second = userCache.findById(user.getId()).orElseThrow();
+
+        assertThat(second.getEmail(), is("john@example.com"));
+        assertThat(second, not(sameInstance(first)));
+        verify(userRepository, times(1)).findById(user.getId());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count(), is(1.0));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "miss")
+                .functionCounter().count(), is(1.0));
+    }
+
+    @Test
+    void findById_ShouldNotCacheMissingUser() {
+        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+
+        assertThat(userCache.findById(user.getId()), is(Optional.empty()));
+        assertThat(userCache.findById(user.getId()), is(Optional.empty()));
+
+        verify(userRepository, times(2)).findById(user.getId());
+    }
+
+    @Test
+    void existsById_ShouldUseCacheOrExistsQueryWithoutLoadingEntity() {
+        when(userRepository.existsById(2L)).thenReturn(false);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        userCache.findById(user.getId());
+
+        assertThat(userCache.existsById(user.getId()), is(true));
+        assertThat(userCache.existsById(2L), is(false));
+
+        verify(userRepository, never()).existsById(user.getId());
+        verify(userRepository, never()).findById(2L);
+    }
+
+    @Test
+    void evict_ShouldReloadUpdatedUser() {
+        when(userRepository.findById(user.getId()))
+                .thenReturn(Optional.of(user))
+                .thenReturn(Optional.of(new User(1L, "John Smith", "john@example.com")));
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        userCache.findById(user.getId());
+
+        userCache.evict(user.getId());
+
+        assertThat(userCache.findById(user.getId()).orElseThrow().getName(), is("John Smith"));
+        verify(secondLevelCache).evict(User.class, user.getId());
+    }
+}
@@ -8,6 +8,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserPatchDto;
 import ru.practicum.shareit.user.model.User;
@@ -29,6 +30,9 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -101,6 +105,7 @@ class UserServiceImplTest {
         userService.deleteUser(user.getId());
 
         verify(userRepository, times(1)).deleteById(user.getId());
+        verify(userCache).evict(user.getId());
     }
 
     @Test
@@ -113,6 +118,7 @@ class UserServiceImplTest {
         assertThat(result, notNullValue());
         assertThat(result.getName(), is(userPatchDto.getName()));
         assertThat(result.getEmail(), is(userPatchDto.getEmail()));
+        verify(userCache).evict(user.getId());
     }
 
     @Test
@@ -1,5 +1,8 @@
 package ru.practicum.shareit;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,10 +11,12 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserPatchDto;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.util.List;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -27,6 +32,9 @@ class UserServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private UserDto userDto;
 
     @BeforeEach
@@ -44,6 +52,21 @@ class UserServiceIntegrationTest {
         assertThat(savedUser.getEmail(), is("john@example.com"));
     }
 
+    @Test
+    void saveAll_ShouldTakeIdsFromSequenceBlockAndInsertInBatch() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<User> users = userRepository.saveAll(LongStream.range(0, 20)
+                .mapToObj(i -> new User(null, "User " + i, "user" + i + "@example.com"))
+                .toList());
+        entityManager.flush();
+
+        assertThat(users.stream().map(User::getId).distinct().count(), is(20L));
+        // Пара обращений к последовательности и один пакетный INSERT вместо запроса на каждую строку
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(3L));
+    }
+
     @Test
     void getAllUsers_ShouldReturnList() {
         userService.createUser(userDto);